@@ -1,3 +1,5 @@
+import java.util.function.BiFunction;
+
 /**
  * Class that implements an AVL tree which implements the MyMap interface.
  * @author Andrew Jung
@@ -65,13 +67,16 @@ public class AVLTreeMap<K extends Comparable<K>, V> extends BSTMap<K, V>
         // trees.
         parent.height =
                 Math.max(avlHeight(parent.left), avlHeight(parent.right)) + 1;
+        parent.subtreeSize = high - low + 1;
         return parent;
     }
 
     /**
      * Associates the specified value with the specified key in this map. If the
      * map previously contained a mapping for the key, the old value is replaced
-     * by the specified value.
+     * by the specified value. The search walks down the tree iteratively, and
+     * a new node is rebalanced bottom-up through the parent pointers, so
+     * replacing the value of an existing key allocates nothing.
      * @param key   the key with which the specified value is to be associated
      * @param value the value to be associated with the specified key
      * @return the previous value associated with key, or null if there was no
@@ -79,100 +84,138 @@ public class AVLTreeMap<K extends Comparable<K>, V> extends BSTMap<K, V>
      */
     @Override
     public V put(K key, V value) {
-        NodeOldValuePair nvp = new NodeOldValuePair(null, null);
-        return insertAndBalance(key, value, root, nvp).oldValue;
+        pending.flush();
+        Node<K, V> parent = null, t = root;
+        int comparison = 0;
+        while (t != null) {
+            comparison = key.compareTo(t.key);
+            if (comparison == 0) {
+                V oldValue = t.value;
+                t.value = value;
+                return oldValue;
+            }
+            parent = t;
+            t = comparison < 0 ? t.left : t.right;
+        }
+        insertLeaf(parent, comparison, key, value);
+        return null;
     }
 
     /**
-     * Removes the mapping for a key from this map if it is present.
+     * If the specified key is not already associated with a value, associates
+     * it with the given value. Otherwise, replaces the associated value with
+     * the result of the given remapping function applied to the old value and
+     * the given value. Both cases take a single descent; only new keys need
+     * rebalancing.
+     * @param key               the key with which the resulting value is to be
+     *                          associated
+     * @param value             the value to use if there is no mapping for key
+     * @param remappingFunction the function to recompute a value if present
+     * @return the new value associated with the specified key
+     */
+    @Override
+    public V merge(K key, V value,
+                   BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        pending.flush();
+        Node<K, V> parent = null, t = root;
+        int comparison = 0;
+        while (t != null) {
+            comparison = key.compareTo(t.key);
+            if (comparison == 0) {
+                t.value = remappingFunction.apply(t.value, value);
+                return t.value;
+            }
+            parent = t;
+            t = comparison < 0 ? t.left : t.right;
+        }
+        insertLeaf(parent, comparison, key, value);
+        return value;
+    }
+
+    /**
+     * Removes the mapping for a key from this map if it is present. A node
+     * with two children takes the key and value of its successor, and the
+     * successor's node is unlinked instead. The tree is then rebalanced
+     * bottom-up from the parent of the unlinked node.
      * @param key key whose mapping is to be removed from the map
      * @return the previous value associated with key, or null if there was no
      *         mapping for key
      */
+    @Override
     public V remove(K key) {
-        NodeOldValuePair nvp = new NodeOldValuePair(null, null);
-        return  remove(key, root, nvp).oldValue;
+        pending.flush();
+        Node<K, V> t = iterativeSearch(key);
+        if (t == null) {
+            return null;
+        }
+        V oldValue = t.value;
+        size--;
+        if (t.left != null && t.right != null) { // Two children
+            Node<K, V> minNode = treeMinimum(t.right);
+            t.key = minNode.key;
+            t.value = minNode.value;
+            t = minNode;
+        }
+        Node<K, V> parent = t.parent;
+        replaceChild(t, t.left != null ? t.left : t.right);
+        addToSubtreeSizes(parent, -1);
+        rebalanceUpFrom(parent);
+        return oldValue;
     }
 
-    private NodeOldValuePair insertAndBalance(
-            K key, V value, Node<K, V> t, NodeOldValuePair nvp) {
-        if (t == null) {
-            size++;
-            nvp.node = new Node<>(key, value);
-            if (root == null) {
-                root = nvp.node;
-            }
-            return nvp;
+    /**
+     * Links a new leaf under parent, on the side given by the comparison of
+     * its key with parent's key, and rebalances the tree above it.
+     * @param parent     the node to hang the leaf under, or null if the tree
+     *                   is empty
+     * @param comparison the result of comparing the key with parent's key
+     * @param key        the key of the new leaf
+     * @param value      the value of the new leaf
+     */
+    @Override
+    protected void insertLeaf(Node<K, V> parent, int comparison, K key, V value) {
+        Node<K, V> leaf = new Node<>(key, value);
+        size++;
+        leaf.parent = parent;
+        if (parent == null) {
+            root = leaf;
+            return;
         }
-        int comparison = key.compareTo(t.key);
         if (comparison < 0) {
-            t.left = insertAndBalance(key, value, t.left, nvp).node;
-        } else if (comparison > 0) {
-            t.right = insertAndBalance(key, value, t.right, nvp).node;
+            parent.left = leaf;
         } else {
-            // The key was found in the tree. Return the previous value
-            // associated with the key. There's no reason to balance.
-            nvp.oldValue = t.value;
-            t.value = value;
-            nvp.node = t;
-            return nvp;
+            parent.right = leaf;
         }
-        nvp.node.parent = t;
-        nvp.node = balance(t);
-        return nvp;
+        addToSubtreeSizes(parent, 1);
+        rebalanceUpFrom(parent);
     }
 
-    private NodeOldValuePair remove(K key, Node<K, V> t, NodeOldValuePair nvp) {
-        if (t == null) {
-            return nvp;
-        }
-        int compareResult = key.compareTo(t.key);
-        if (compareResult < 0) {
-            t.left = remove(key, t.left, nvp).node;
-            if (t.left != null) {
-                t.left.parent = t;
-            }
-        } else if (compareResult > 0) {
-            t.right = remove(key, t.right, nvp).node;
-            if (t.right != null) {
-                t.right.parent = t;
-            }
-        } else {
-            // Store the value associated with the key and decrement the size
-            // the first time there's a match.
-            if (nvp.oldValue == null) {
-                nvp.oldValue = t.value;
-                size--;
-            }
-            if (t.left != null && t.right != null) { // Two children
-                Node<K, V> minNode = treeMinimum(t.right);
-                t.key = minNode.key;
-                t.value = minNode.value;
-                t.right = remove(t.key, t.right, nvp).node;
-                if (t.right != null) {
-                    t.right.parent = t;
-                }
-            } else if (t.left != null) {
-                t.left.parent = t.parent;
-                t = t.left;
-            } else if (t.right != null) {
-                t.right.parent = t.parent;
-                t = t.right;
-            } else {
-                t = null;
+    /**
+     * Walks from t up to the root, fixing heights and rotating any node that
+     * has become unbalanced. The walk stops at the first subtree whose height
+     * is the same as before the change, since nothing above it can have
+     * changed either.
+     * @param t the lowest node whose subtree changed, or null
+     */
+    private void rebalanceUpFrom(Node<K, V> t) {
+        while (t != null) {
+            int oldHeight = t.height;
+            Node<K, V> parent = t.parent;
+            if (balance(t).height == oldHeight) {
+                return;
             }
+            t = parent;
         }
-        nvp.node = balance(t);
-        return nvp;
     }
 
+    /**
+     * Rotates t if its subtrees differ in height by more than
+     * ALLOWED_IMBALANCE and recomputes its height. The rotated subtree is
+     * linked back under t's old parent.
+     * @param t the node to balance
+     * @return the root of the balanced subtree
+     */
     private Node<K, V> balance(Node<K, V> t) {
-        if (t == null) {
-            if (size == 0) {
-                root = null;
-            }
-            return null;
-        }
         int heightLeft = avlHeight(t.left), heightRight = avlHeight(t.right);
         if (heightLeft - heightRight > ALLOWED_IMBALANCE) {
             if (avlHeight(t.left.left) >= avlHeight(t.left.right)) {
@@ -186,24 +229,49 @@ public class AVLTreeMap<K extends Comparable<K>, V> extends BSTMap<K, V>
             } else {
                 t = doubleWithRightChild(t);
             }
-        }
-        t.height = Math.max(avlHeight(t.left), avlHeight(t.right)) + 1;
-        if (t.parent == null) {
-            root = t;
+        } else {
+            t.height = Math.max(heightLeft, heightRight) + 1;
         }
         return t;
     }
 
+    /**
+     * Returns the number of nodes an iterator's stack can ever hold, which
+     * for an AVL tree is known exactly from the height of the root.
+     * @return the initial capacity of an iterator's stack
+     */
+    @Override
+    protected int iteratorStackSize() {
+        return avlHeight(root) + 1;
+    }
+
     private int avlHeight(Node<K, V> t) {
         return t == null ? -1 : t.height;
     }
 
+    /**
+     * Puts replacement where child was under child's parent, making it the
+     * root if child was the root.
+     * @param child       the node being replaced
+     * @param replacement the node taking its place, or null
+     */
+    private void replaceChild(Node<K, V> child, Node<K, V> replacement) {
+        Node<K, V> parent = child.parent;
+        if (replacement != null) {
+            replacement.parent = parent;
+        }
+        if (parent == null) {
+            root = replacement;
+        } else if (parent.left == child) {
+            parent.left = replacement;
+        } else {
+            parent.right = replacement;
+        }
+    }
+
     private Node<K, V> rotateWithLeftChild(Node<K, V> k2) {
         Node<K, V> k1 = k2.left;
-        if (k2 == root) {
-            root = k1;
-            root.parent = null;
-        }
+        replaceChild(k2, k1);
         k2.left = k1.right;
         if (k1.right != null) {
             k1.right.parent = k2;
@@ -212,15 +280,14 @@ public class AVLTreeMap<K extends Comparable<K>, V> extends BSTMap<K, V>
         k2.parent = k1;
         k2.height = Math.max(avlHeight(k2.left), avlHeight(k2.right)) + 1;
         k1.height = Math.max(avlHeight(k1.left), k2.height) + 1;
+        k1.subtreeSize = k2.subtreeSize;
+        k2.subtreeSize = subtreeSize(k2.left) + subtreeSize(k2.right) + 1;
         return k1;
     }
 
     private Node<K, V> rotateWithRightChild(Node<K, V> k1) {
         Node<K, V> k2 = k1.right;
-        if (k1 == root) {
-            root = k2;
-            root.parent = null;
-        }
+        replaceChild(k1, k2);
         k1.right = k2.left;
         if (k2.left != null) {
             k2.left.parent = k1;
@@ -229,29 +296,21 @@ public class AVLTreeMap<K extends Comparable<K>, V> extends BSTMap<K, V>
         k1.parent = k2;
         k1.height = Math.max(avlHeight(k1.right), avlHeight(k1.left)) + 1;
         k2.height = Math.max(avlHeight(k2.right), k1.height) + 1;
+        k2.subtreeSize = k1.subtreeSize;
+        k1.subtreeSize = subtreeSize(k1.left) + subtreeSize(k1.right) + 1;
         return k2;
     }
 
     private Node<K, V> doubleWithLeftChild(Node<K, V> k3) {
-        k3.left = rotateWithRightChild(k3.left);
+        rotateWithRightChild(k3.left);
         return rotateWithLeftChild(k3);
     }
 
     private Node<K, V> doubleWithRightChild(Node<K, V> k3) {
-        k3.right = rotateWithLeftChild(k3.right);
+        rotateWithLeftChild(k3.right);
         return rotateWithRightChild(k3);
     }
 
-    private class NodeOldValuePair {
-        Node<K, V> node;
-        V oldValue;
-
-        NodeOldValuePair(Node<K, V> n, V oldValue) {
-            this.node = n;
-            this.oldValue = oldValue;
-        }
-    }
-
     public static void main(String[] args) {
         boolean usingInts = true;
         if (args.length > 0) {
@@ -0,0 +1,263 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Class for a read-only index that answers "the K most common words starting
+ * with a prefix" in O(|prefix| + K) time. The words of a counted map are
+ * sorted once, so the words sharing a prefix sit next to each other, and a
+ * compressed prefix tree is built over them. Every node of the tree keeps the
+ * K most common words below it, so a query only walks down to the node of
+ * the prefix and copies that node's list out.
+ * The index is a snapshot: later changes to the map are not seen.
+ * @author Andrew Jung
+ * @version 1.0 October 18, 2026
+ */
+public class AutocompleteIndex {
+    private static final int[] NO_WORDS = new int[0];
+    private final String[] words;
+    private final int[] counts;
+    private final int k;
+    private final IndexNode root;
+
+    /**
+     * A node of the prefix tree. Every word from words[first] on, up to the
+     * end of the node's subtree, starts with the depth chars of
+     * words[first]. top holds the indexes of the K most common of them, most
+     * common first.
+     */
+    private static final class IndexNode {
+        final int first, depth;
+        char[] childChars;
+        IndexNode[] children;
+        int[] top = NO_WORDS;
+
+        IndexNode(int first, int depth) {
+            this.first = first;
+            this.depth = depth;
+        }
+    }
+
+    /**
+     * Builds an index of the words in the map that keeps the k most common
+     * completions of every prefix.
+     * @param map the counted words
+     * @param k   the largest number of completions a query can return
+     * @throws IllegalArgumentException if k is not positive
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public AutocompleteIndex(MyMap<String, Integer> map, int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive: " + k);
+        }
+        this.k = k;
+        Entry<String, Integer>[] entries = new Entry[map.size()];
+        Iterator<Entry<String, Integer>> iterator = map.iterator();
+        int size = 0;
+        boolean sorted = true;
+        while (iterator.hasNext() && size < entries.length) {
+            Entry<String, Integer> e = iterator.next();
+            if (size > 0 && entries[size - 1].key.compareTo(e.key) > 0) {
+                sorted = false;
+            }
+            entries[size++] = e;
+        }
+        // tree maps and RadixTrieMap already iterate in key order
+        if (!sorted) {
+            Arrays.sort(entries, 0, size, (a, b) -> a.key.compareTo(b.key));
+        }
+        words = new String[size];
+        counts = new int[size];
+        for (int i = 0; i < size; i++) {
+            words[i] = entries[i].key;
+            counts[i] = entries[i].value;
+        }
+        root = size == 0 ? new IndexNode(0, 0) : build(0, size, 0);
+    }
+
+    /**
+     * Builds the subtree of words[low] to words[high - 1], which all share
+     * their first minDepth chars.
+     * @param low      the index of the first word of the subtree
+     * @param high     one past the index of the last word of the subtree
+     * @param minDepth the number of chars the words are known to share
+     * @return the root of the subtree
+     */
+    private IndexNode build(int low, int high, int minDepth) {
+        // the words are sorted, so the prefix shared by the first and the
+        // last word is shared by all of them
+        String firstWord = words[low], lastWord = words[high - 1];
+        int depth = minDepth;
+        int limit = Math.min(firstWord.length(), lastWord.length());
+        while (depth < limit && firstWord.charAt(depth) == lastWord.charAt(depth)) {
+            depth++;
+        }
+        IndexNode node = new IndexNode(low, depth);
+        if (high - low == 1) {
+            node.top = new int[] {low};
+            return node;
+        }
+        // a word that ends at this node sorts before all the longer ones
+        int start = firstWord.length() == depth ? low + 1 : low;
+        int childCount = 0;
+        for (int i = start; i < high; i++) {
+            if (i == start || words[i].charAt(depth) != words[i - 1].charAt(depth)) {
+                childCount++;
+            }
+        }
+        node.childChars = new char[childCount];
+        node.children = new IndexNode[childCount];
+        int child = 0, candidates = start - low;
+        for (int i = start; i < high; ) {
+            char c = words[i].charAt(depth);
+            int end = i + 1;
+            while (end < high && words[end].charAt(depth) == c) {
+                end++;
+            }
+            node.childChars[child] = c;
+            node.children[child] = build(i, end, depth + 1);
+            candidates += node.children[child].top.length;
+            child++;
+            i = end;
+        }
+        int[] merged = new int[candidates];
+        int size = 0;
+        if (start > low) {
+            merged[size++] = low;
+        }
+        for (IndexNode c : node.children) {
+            for (int index : c.top) {
+                merged[size++] = index;
+            }
+        }
+        node.top = topK(merged);
+        return node;
+    }
+
+    /**
+     * Returns the k most common of the given words, most common first and
+     * then in alphabetical order. Each candidate is packed into a long with
+     * its negated count in the high half and its index in the low half, and
+     * indexes are in alphabetical order, so sorting the longs gives that
+     * order.
+     * @param candidates indexes of words
+     * @return the indexes of the k most common candidates
+     */
+    private int[] topK(int[] candidates) {
+        long[] packed = new long[candidates.length];
+        for (int i = 0; i < candidates.length; i++) {
+            packed[i] = (-(long) counts[candidates[i]] << 32) | candidates[i];
+        }
+        Arrays.sort(packed);
+        int[] top = new int[Math.min(k, packed.length)];
+        for (int i = 0; i < top.length; i++) {
+            top[i] = (int) packed[i];
+        }
+        return top;
+    }
+
+    /**
+     * Returns the node whose subtree holds exactly the words starting with
+     * the prefix, or null if no word starts with it.
+     * @param prefix the prefix to look for
+     * @return the node of the prefix, or null
+     */
+    private IndexNode find(String prefix) {
+        if (words.length == 0) {
+            return null;
+        }
+        IndexNode node = root;
+        int i = 0;
+        while (i < prefix.length()) {
+            // match the rest of the chars every word of this node shares
+            String shared = words[node.first];
+            int end = Math.min(node.depth, prefix.length());
+            for (; i < end; i++) {
+                if (shared.charAt(i) != prefix.charAt(i)) {
+                    return null;
+                }
+            }
+            if (i == prefix.length()) {
+                break;
+            }
+            int child = node.childChars == null ? -1
+                    : Arrays.binarySearch(node.childChars, prefix.charAt(i));
+            if (child < 0) {
+                return null;
+            }
+            node = node.children[child];
+            i++;
+        }
+        return node;
+    }
+
+    /**
+     * Returns the largest number of completions a query can return.
+     * @return the k this index was built with
+     */
+    public int getK() {
+        return k;
+    }
+
+    /**
+     * Returns the number of words in this index.
+     * @return the number of words in this index
+     */
+    public int size() {
+        return words.length;
+    }
+
+    /**
+     * Returns the K most common words starting with the prefix.
+     * @param prefix the prefix the words must start with
+     * @return a sorted array of at most K words starting with prefix
+     */
+    public Entry<String, Integer>[] complete(String prefix) {
+        return complete(prefix, k);
+    }
+
+    /**
+     * Returns the limit most common words starting with the prefix, most
+     * common first and then in alphabetical order, like
+     * CommonWordFinder.mostCommonWords.
+     * @param prefix the prefix the words must start with
+     * @param limit  the number of words wanted; at most K are returned
+     * @return a sorted array of at most min(limit, K) words starting with
+     *         prefix
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Entry<String, Integer>[] complete(String prefix, int limit) {
+        IndexNode node = find(prefix);
+        int[] top = node == null ? NO_WORDS : node.top;
+        Entry<String, Integer>[] completions =
+                new Entry[Math.max(0, Math.min(limit, top.length))];
+        for (int i = 0; i < completions.length; i++) {
+            completions[i] = new Entry<>(words[top[i]], counts[top[i]]);
+        }
+        return completions;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: java AutocompleteIndex <filename> "
+                    + "<prefix...>");
+            System.exit(1);
+        }
+        MyMap<String, Integer> map = new WordCounterMap();
+        CommonWordFinder.parseAndStoreWords(new File(args[0]), map);
+        long start = System.nanoTime();
+        AutocompleteIndex index = new AutocompleteIndex(map, 10);
+        System.out.printf("Indexed %d words in %.1f ms%n", index.size(),
+                (System.nanoTime() - start) / 1e6);
+        for (int i = 1; i < args.length; i++) {
+            start = System.nanoTime();
+            Entry<String, Integer>[] completions = index.complete(args[i]);
+            double micros = (System.nanoTime() - start) / 1e3;
+            System.out.printf("Completions of \"%s\" (%.1f us):%n", args[i],
+                    micros);
+            CommonWordFinder.printMostCommonWords(completions.length,
+                    completions);
+        }
+    }
+}
@@ -1,5 +1,13 @@
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
 import java.util.Stack;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
 
 /**
  * Class that implements a binary search tree which implements the MyMap
@@ -9,10 +17,15 @@ import java.util.Stack;
  * Some methods such as preorder, inorder, and postorder were provided
  * by my professor
  */
-public class BSTMap<K extends Comparable<K>, V> implements MyMap<K, V> {
+public class BSTMap<K extends Comparable<K>, V> implements MyMap<K, V>,
+        WordCounter {
     public static final int PREORDER = 1, INORDER = 2, POSTORDER = 3;
     protected Node<K, V> root;
     protected int size;
+    // counts added by increment that are not in their Nodes' values yet;
+    // subclasses flush it before reading or replacing a value
+    protected final PendingCounts pending = new PendingCounts();
+    private final CharSlice slice = new CharSlice();
 
     /**
      * Creates an empty binary search tree map.
@@ -68,6 +81,7 @@ public class BSTMap<K extends Comparable<K>, V> implements MyMap<K, V> {
         if (parent.right != null) {
             parent.right.parent = parent;
         }
+        parent.subtreeSize = high - low + 1;
         return parent;
     }
 
@@ -105,6 +119,7 @@ public class BSTMap<K extends Comparable<K>, V> implements MyMap<K, V> {
      *         traversal
      */
     public String preorder() {
+        pending.flush();
         StringBuilder builder = new StringBuilder();
         builder.append("[");
         preorder(root, builder, 0);
@@ -142,6 +157,7 @@ public class BSTMap<K extends Comparable<K>, V> implements MyMap<K, V> {
      *         traversal
      */
     public String inorder() {
+        pending.flush();
         StringBuilder builder = new StringBuilder();
         builder.append("[");
         inorder(root, builder, 0);
@@ -179,6 +195,7 @@ public class BSTMap<K extends Comparable<K>, V> implements MyMap<K, V> {
      *         traversal
      */
     public String postorder() {
+        pending.flush();
         StringBuilder builder = new StringBuilder();
         builder.append("[");
         postorder(root, builder, 0);
@@ -218,6 +235,7 @@ public class BSTMap<K extends Comparable<K>, V> implements MyMap<K, V> {
      *         map contains no mapping for the key
      */
     public V get(K key) {
+        pending.flush();
         Node<K, V> x = iterativeSearch(key);
         return x != null ? x.value : null;
     }
@@ -270,6 +288,7 @@ public class BSTMap<K extends Comparable<K>, V> implements MyMap<K, V> {
      *         mapping for key
      */
     public V put(K key, V value) {
+        pending.flush();
         Node<K, V> x = root, y = null;
         while (x != null) {
             y = x;
@@ -296,10 +315,121 @@ public class BSTMap<K extends Comparable<K>, V> implements MyMap<K, V> {
             y.right = n;
         }
         size++;
+        addToSubtreeSizes(y, 1);
         // There was no previous mapping for this key.
         return null;
     }
 
+    /**
+     * If the specified key is not already associated with a value, associates
+     * it with the given value. Otherwise, replaces the associated value with
+     * the result of the given remapping function applied to the old value and
+     * the given value. The tree is only descended once.
+     * @param key               the key with which the resulting value is to be
+     *                          associated
+     * @param value             the value to use if there is no mapping for key
+     * @param remappingFunction the function to recompute a value if present
+     * @return the new value associated with the specified key
+     */
+    @Override
+    public V merge(K key, V value,
+                   BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        pending.flush();
+        Node<K, V> x = root, y = null;
+        int comparison = 0;
+        while (x != null) {
+            y = x;
+            comparison = key.compareTo(x.key);
+            if (comparison < 0) {
+                x = x.left;
+            } else if (comparison > 0) {
+                x = x.right;
+            } else {
+                x.value = remappingFunction.apply(x.value, value);
+                return x.value;
+            }
+        }
+        insertLeaf(y, comparison, key, value);
+        return value;
+    }
+
+    /**
+     * Adds delta to the count of the word, starting from 0 if the word is not
+     * in the map yet. The map must be from Strings to Integers. The count is
+     * kept in the word's Node as an int, so no Integer is boxed for it.
+     * @param word  the word whose count is to be increased
+     * @param delta the amount to add to the count
+     * @return the new count of the word
+     */
+    @Override
+    public int increment(String word, int delta) {
+        return addToCount(word, delta);
+    }
+
+    /**
+     * Adds delta to the count of the word held in chars[offset] to
+     * chars[offset + length - 1]. A String is only made for a word that is
+     * not in the map yet.
+     * @param chars  the buffer holding the word
+     * @param offset the index of the first char of the word
+     * @param length the number of chars in the word
+     * @param delta  the amount to add to the count
+     * @return the new count of the word
+     */
+    @Override
+    public int increment(char[] chars, int offset, int length, int delta) {
+        slice.set(chars, offset, length, CharSlice.hashCode(chars, offset, length));
+        return addToCount(slice, delta);
+    }
+
+    /**
+     * Adds delta to the count of the key the probe stands in for. The tree
+     * is only descended once: a new key becomes a leaf under the last Node
+     * the descent reached.
+     * @param probe stands in for the key whose count is to be increased
+     * @param delta the amount to add to the count
+     * @return the new count of the key
+     */
+    @SuppressWarnings("unchecked")
+    protected int addToCount(Comparable<String> probe, int delta) {
+        Node<K, V> x = root, y = null;
+        int comparison = 0;
+        while (x != null) {
+            y = x;
+            comparison = probe.compareTo((String) x.key);
+            if (comparison == 0) {
+                return pending.add(x, delta);
+            }
+            x = comparison < 0 ? x.left : x.right;
+        }
+        insertLeaf(y, comparison, (K) probe.toString(), (V) Integer.valueOf(delta));
+        return delta;
+    }
+
+    /**
+     * Links a new leaf under parent, on the side given by the comparison of
+     * its key with parent's key. Balanced subclasses override this to
+     * rebalance the tree above the leaf.
+     * @param parent     the node to hang the leaf under, or null if the tree
+     *                   is empty
+     * @param comparison the result of comparing the key with parent's key
+     * @param key        the key of the new leaf
+     * @param value      the value of the new leaf
+     */
+    protected void insertLeaf(Node<K, V> parent, int comparison, K key, V value) {
+        Node<K, V> n = new Node<>(key, value);
+        n.parent = parent;
+        if (parent == null) {
+            root = n;
+        } else if (comparison < 0) {
+            parent.left = n;
+        } else {
+            parent.right = n;
+        }
+        size++;
+        addToSubtreeSizes(parent, 1);
+    }
+
     /**
      * Removes the mapping for a key from this map if it is present.
      * @param key key whose mapping is to be removed from the map
@@ -307,6 +437,7 @@ public class BSTMap<K extends Comparable<K>, V> implements MyMap<K, V> {
      *         mapping for key
      */
     public V remove(K key) {
+        pending.flush();
         //find and return node that is to be removed
         Node<K, V> toBeRemovedNode = iterativeSearch(key);
 
@@ -318,106 +449,227 @@ public class BSTMap<K extends Comparable<K>, V> implements MyMap<K, V> {
         //store old value of the node
         V oldValue = toBeRemovedNode.value;
 
-        //case for when the node to be removed has two children
+        //when the node to be removed has two children, the minimum node of
+        //its right subtree takes its key and value, and that node, which has
+        //no left child, is unlinked instead
         if(toBeRemovedNode.left != null && toBeRemovedNode.right != null){
-            //find the minimum node of the right child, which will replace
-            //the removed node
             Node<K, V> replacement = treeMinimum(toBeRemovedNode.right);
-            Node<K, V> parent = replacement.parent;
-            //if the replacement node has a right child
-            if(replacement.right != null){
-                //if replacement node is the right child of the removed node
-                if(parent == toBeRemovedNode){
-                    //then set the right child of the toBeRemoved node to the right child of
-                    //the replacement node
-                    toBeRemovedNode.right = replacement.right;
-                    //then set the parent pointer of that child accordingly
-                    replacement.right.parent = toBeRemovedNode;
-                }
-                //if replacement node is not the right child of the removed node
-                else{
-                    //set the left child parent of the replacement node to be
-                    //the replacement's right child (since replacement node is minimum,
-                    //we don't have to consider replacement's left child)
-                    parent.left = replacement.right;
-                    //set parent pointer of the right child accordingly
-                    replacement.right.parent = parent;
-                }
-            }
-            //if the replacement node does not have a right child, and the parent
-            //of the replacement is not the root, it means that the replacement node is a leaf.
-            //Set the left child of the parent of the replacement to be null
-            else if(parent != root){
-                parent.left = null;
-            }
-            //else there is only one right child of the root, so set the right child
-            //of the parent to be null
-            else{
-                parent.right = null;
-            }
-            //replace the toBeRemoved node key and value with replacement's
             toBeRemovedNode.key = replacement.key;
             toBeRemovedNode.value = replacement.value;
-            replacement = null;
-            size--;
-            return oldValue;
+            toBeRemovedNode = replacement;
         }
 
-        //case for when the toBeRemoved node is a leaf
-        else if(toBeRemovedNode.left == null && toBeRemovedNode.right == null){
-            //if node is root, then set root to null
-            if(toBeRemovedNode == root){
-                root = null;
-                size--;
-                return oldValue;
-            }
-            //if the toBeRemoved node is the left child
-            //then set .parent.left to null
-            if(toBeRemovedNode == toBeRemovedNode.parent.left){
-                toBeRemovedNode.parent.left = null;
+        //the node now has at most one child, which takes its place
+        Node<K, V> parent = toBeRemovedNode.parent;
+        Node<K, V> child = toBeRemovedNode.left != null
+                ? toBeRemovedNode.left : toBeRemovedNode.right;
+        if(child != null){
+            child.parent = parent;
+        }
+        if(parent == null){
+            root = child;
+        }
+        else if(toBeRemovedNode == parent.left){
+            parent.left = child;
+        }
+        else{
+            parent.right = child;
+        }
+        addToSubtreeSizes(parent, -1);
+        size--;
+        return oldValue;
+    }
+
+    /**
+     * Returns the number of nodes in the subtree rooted at the node.
+     * @param node the root of the subtree, or null
+     * @return the number of nodes in the subtree, or 0 if node is null
+     */
+    protected static int subtreeSize(Node<?, ?> node) {
+        return node == null ? 0 : node.subtreeSize;
+    }
+
+    /**
+     * Adds delta to the subtree size of the node and of every node above it,
+     * after a node has been linked or unlinked below it.
+     * @param node  the lowest node whose subtree changed, or null
+     * @param delta the number of nodes added to the subtree
+     */
+    protected void addToSubtreeSizes(Node<K, V> node, int delta) {
+        for (; node != null; node = node.parent) {
+            node.subtreeSize += delta;
+        }
+    }
+
+    /**
+     * Returns the number of keys in this map that are less than the key. The
+     * key does not have to be in the map. Runs in time proportional to the
+     * height of the tree.
+     * @param key the key to rank
+     * @return the number of keys less than key
+     */
+    public int rank(K key) {
+        int rank = 0;
+        Node<K, V> p = root;
+        while (p != null) {
+            int compare = key.compareTo(p.key);
+            if (compare < 0) {
+                p = p.left;
+            } else {
+                rank += subtreeSize(p.left);
+                if (compare == 0) {
+                    return rank;
+                }
+                rank++;
+                p = p.right;
             }
-            //if the toBeRemoved node is the right child
-            //then set .parent.right to null
-            else if(toBeRemovedNode == toBeRemovedNode.parent.right){
-                toBeRemovedNode.parent.right = null;
+        }
+        return rank;
+    }
+
+    /**
+     * Returns the Entry with the index-th smallest key, counting from 0, so
+     * that rank(select(index).key) == index. Runs in time proportional to the
+     * height of the tree.
+     * @param index the position of the Entry in key order
+     * @return the Entry with the index-th smallest key
+     * @throws IndexOutOfBoundsException if index is negative or not less
+     *         than size()
+     */
+    public Entry<K, V> select(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(
+                    "Index: " + index + ", Size: " + size);
+        }
+        pending.flush();
+        return selectNode(index);
+    }
+
+    /**
+     * Returns the node with the index-th smallest key.
+     * @param index the position of the node in key order, in [0, size)
+     * @return the node with the index-th smallest key
+     */
+    protected Node<K, V> selectNode(int index) {
+        Node<K, V> p = root;
+        while (true) {
+            int leftSize = subtreeSize(p.left);
+            if (index < leftSize) {
+                p = p.left;
+            } else if (index == leftSize) {
+                return p;
+            } else {
+                index -= leftSize + 1;
+                p = p.right;
             }
-            size--;
-            return oldValue;
         }
+    }
+
+    /**
+     * Returns the number of keys in this map from fromKey, inclusive, to
+     * toKey, exclusive. Runs in time proportional to the height of the tree.
+     * @param fromKey the low end of the range, inclusive
+     * @param toKey   the high end of the range, exclusive
+     * @return the number of keys in the range
+     * @throws IllegalArgumentException if fromKey is greater than toKey
+     */
+    public int subMapSize(K fromKey, K toKey) {
+        if (fromKey.compareTo(toKey) > 0) {
+            throw new IllegalArgumentException("fromKey > toKey");
+        }
+        return rank(toKey) - rank(fromKey);
+    }
 
-        //case for when the toBeRemoved node has one child
-        else{
-            Node<K, V> parent = toBeRemovedNode.parent;
-            Node<K, V> replacement;
-            //see which child becomes the replacement
-            if(toBeRemovedNode.left == null){
-                replacement = toBeRemovedNode.right;
+    /**
+     * Adds the mappings of the other trees to this map, for example the
+     * partial counts of several threads or files. The in-order iterators of
+     * this tree and the others are merged into one sorted array, applying
+     * the remapping function to the values of a key found in more than one
+     * tree, and the tree is rebuilt balanced from the array with createBST.
+     * This takes time proportional to the total number of mappings times
+     * log k for k trees, where putting the mappings one at a time would take
+     * time proportional to the total times log n. The other trees are left
+     * unchanged and must not include this map.
+     * @param others            the trees whose mappings are to be added
+     * @param remappingFunction the function to combine the values of a key
+     *                          in more than one tree
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void mergeAll(List<? extends BSTMap<K, V>> others,
+                         BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        // each queued iterator is ordered by the key of its current Entry
+        PriorityQueue<MergeCursor<K, V>> heads = new PriorityQueue<>();
+        long total = size;
+        MergeCursor.addTo(heads, iterator());
+        for (BSTMap<K, V> other : others) {
+            total += other.size;
+            MergeCursor.addTo(heads, other.iterator());
+        }
+        if (total > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Too many mappings to merge: "
+                    + total);
+        }
+        Pair<K, V>[] pairs = new Pair[(int) total];
+        int count = 0;
+        while (!heads.isEmpty()) {
+            MergeCursor<K, V> head = heads.poll();
+            Entry<K, V> e = head.current;
+            if (count > 0 && pairs[count - 1].key.compareTo(e.key) == 0) {
+                pairs[count - 1].value =
+                        remappingFunction.apply(pairs[count - 1].value, e.value);
+            } else {
+                pairs[count++] = new Pair<>(e.key, e.value);
             }
-            else{
-                replacement = toBeRemovedNode.left;
-            }
-            //if the toBeRemoved node is the root, then
-            //set replacement.parent to null and set root to replacement
-            //pointers of replacement will carry over
-            if(toBeRemovedNode == root){
-                root = replacement;
-                replacement.parent = null;
-                return oldValue;
+            if (head.advance()) {
+                heads.add(head);
             }
-            //if toBeRemoved is the left child, then set
-            //the left child of parent to be the replacement node
-            //and the parent of the replacement to the parent
-            if(toBeRemovedNode == parent.left){
-                parent.left = replacement;
-                replacement.parent = parent;
+        }
+        // AVLTreeMap's createBST counts the nodes as it makes them
+        size = 0;
+        root = createBST(pairs, 0, count - 1);
+        size = count;
+    }
+
+    /**
+     * An in-order iterator of one of the trees being merged by mergeAll,
+     * together with the Entry it returned last.
+     */
+    private static final class MergeCursor<K extends Comparable<K>, V>
+            implements Comparable<MergeCursor<K, V>> {
+        private final Iterator<Entry<K, V>> iterator;
+        private Entry<K, V> current;
+
+        private MergeCursor(Iterator<Entry<K, V>> iterator) {
+            this.iterator = iterator;
+        }
+
+        /**
+         * Queues a cursor over the iterator unless the iterator is empty.
+         */
+        static <K extends Comparable<K>, V> void addTo(
+                PriorityQueue<MergeCursor<K, V>> heads,
+                Iterator<Entry<K, V>> iterator) {
+            MergeCursor<K, V> cursor = new MergeCursor<>(iterator);
+            if (cursor.advance()) {
+                heads.add(cursor);
             }
-            //same story here but for right child
-            else{
-                parent.right = replacement;
-                replacement.parent = parent;
+        }
+
+        /**
+         * Moves on to the next Entry.
+         * @return false if the iterator has no more Entries
+         */
+        boolean advance() {
+            if (!iterator.hasNext()) {
+                return false;
             }
-            size--;
-            return oldValue;
+            current = iterator.next();
+            return true;
+        }
+
+        @Override
+        public int compareTo(MergeCursor<K, V> other) {
+            return current.key.compareTo(other.current.key);
         }
     }
 
@@ -449,6 +701,7 @@ public class BSTMap<K extends Comparable<K>, V> implements MyMap<K, V> {
      * @return an ASCII drawing of the tree
      */
     public String toAsciiDrawing() {
+        pending.flush();
         BinarySearchTreePrinter<K, V> printer =
                 new BinarySearchTreePrinter<>();
         printer.createAsciiTree(root);
@@ -473,40 +726,145 @@ public class BSTMap<K extends Comparable<K>, V> implements MyMap<K, V> {
     }
 
     /**
-     * Returns an iterator over the Entries in this map in the order
-     * in which they appear.
+     * Returns an iterator over the Entries in this map, in ascending key
+     * order.
      * @return an iterator over the Entries in this map
      */
     public Iterator<Entry<K, V>> iterator() {
-        return new BinaryTreeItr();
+        return new BinaryTreeItr(null, null, false);
     }
 
+    /**
+     * Returns an iterator over the Entries with keys from fromKey, inclusive,
+     * to toKey, exclusive, in ascending key order. The iterator seeks to
+     * fromKey in time proportional to the height of the tree and then only
+     * visits the Entries it returns.
+     * @param fromKey the low end of the range, inclusive, or null for no
+     *                low end
+     * @param toKey   the high end of the range, exclusive, or null for no
+     *                high end
+     * @return an iterator over the Entries in the range
+     */
+    public Iterator<Entry<K, V>> iterator(K fromKey, K toKey) {
+        return new BinaryTreeItr(fromKey, toKey, false);
+    }
+
+    /**
+     * Returns an iterator over the Entries in this map, in descending key
+     * order.
+     * @return an iterator over the Entries in this map, largest key first
+     */
+    public Iterator<Entry<K, V>> descendingIterator() {
+        return new BinaryTreeItr(null, null, true);
+    }
+
+    /**
+     * Returns an iterator over the Entries with keys from fromKey, inclusive,
+     * to toKey, exclusive, in descending key order, seeking straight to the
+     * largest key below toKey.
+     * @param fromKey the low end of the range, inclusive, or null for no
+     *                low end
+     * @param toKey   the high end of the range, exclusive, or null for no
+     *                high end
+     * @return an iterator over the Entries in the range, largest key first
+     */
+    public Iterator<Entry<K, V>> descendingIterator(K fromKey, K toKey) {
+        return new BinaryTreeItr(fromKey, toKey, true);
+    }
+
+    /**
+     * Returns the number of nodes an iterator's stack should have room for
+     * up front. The stack never holds more nodes than the height of the tree
+     * plus one; a plain binary search tree does not track its height, so it
+     * guesses twice the height of a balanced tree and grows if needed.
+     * @return the initial capacity of an iterator's stack
+     */
+    protected int iteratorStackSize() {
+        return 2 * (32 - Integer.numberOfLeadingZeros(size)) + 1;
+    }
+
+    /**
+     * Inorder iterator with an explicit stack of the nodes whose Entry and
+     * far subtree are still to be visited. Ascending, the stack holds nodes
+     * whose right subtree is left; descending, nodes whose left subtree is
+     * left.
+     */
     private class BinaryTreeItr implements Iterator<Entry<K, V>> {
-        private Node<K, V> current;
-        private final Stack<Node<K, V>> parentStack = new Stack<>();
+        private Node<K, V>[] stack;
+        private int top;
+        private final K fromKey, toKey;
+        private final boolean descending;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        BinaryTreeItr(K fromKey, K toKey, boolean descending) {
+            this.fromKey = fromKey;
+            this.toKey = toKey;
+            this.descending = descending;
+            pending.flush();
+            stack = new Node[iteratorStackSize()];
+            // push the path to the first Entry in the range, skipping the
+            // subtrees that are entirely out of it
+            Node<K, V> p = root;
+            while (p != null) {
+                if (descending) {
+                    if (toKey == null || p.key.compareTo(toKey) < 0) {
+                        push(p);
+                        p = p.right;
+                    } else {
+                        p = p.left;
+                    }
+                } else {
+                    if (fromKey == null || p.key.compareTo(fromKey) >= 0) {
+                        push(p);
+                        p = p.left;
+                    } else {
+                        p = p.right;
+                    }
+                }
+            }
+            dropIfOutOfRange();
+        }
 
-        BinaryTreeItr() {
-            current = root;
+        private void push(Node<K, V> node) {
+            if (top == stack.length) {
+                stack = Arrays.copyOf(stack, 2 * top + 1);
+            }
+            stack[top++] = node;
+        }
+
+        /**
+         * Empties the stack if the next Entry is past the far end of the
+         * range.
+         */
+        private void dropIfOutOfRange() {
+            if (top == 0) {
+                return;
+            }
+            K key = stack[top - 1].key;
+            if (descending ? fromKey != null && key.compareTo(fromKey) < 0
+                    : toKey != null && key.compareTo(toKey) >= 0) {
+                top = 0;
+            }
         }
 
         @Override
         public boolean hasNext() {
-            return !parentStack.isEmpty() || current != null;
+            return top > 0;
         }
 
         @Override
         public Entry<K, V> next() {
-            while (hasNext()) {
-                if (current != null) {
-                    parentStack.push(current);
-                    current = current.left;
-                } else {
-                    Node<K, V> toReturn = parentStack.pop();
-                    current = toReturn.right;
-                    return toReturn;
-                }
+            if (top == 0) {
+                throw new NoSuchElementException();
             }
-            return null;
+            Node<K, V> toReturn = stack[--top];
+            Node<K, V> p = descending ? toReturn.left : toReturn.right;
+            while (p != null) {
+                push(p);
+                p = descending ? p.right : p.left;
+            }
+            dropIfOutOfRange();
+            return toReturn;
         }
 
         @Override
@@ -515,6 +873,99 @@ public class BSTMap<K extends Comparable<K>, V> implements MyMap<K, V> {
         }
     }
 
+    /**
+     * Returns a Spliterator over the Entries in this map, in ascending key
+     * order. It covers a range of ranks and splits the range in half; the
+     * subtree sizes kept in the nodes let each half find its first node in
+     * time proportional to the height of the tree, so every split hands off
+     * an exact number of Entries.
+     * @return a Spliterator over the Entries in this map
+     */
+    @Override
+    public Spliterator<Entry<K, V>> spliterator() {
+        pending.flush();
+        return new TreeSpliterator(0, size);
+    }
+
+    /**
+     * Returns the node that comes after the node in key order, or null if it
+     * has the largest key.
+     * @param node a node of this tree
+     * @return the successor of the node, or null
+     */
+    protected Node<K, V> successor(Node<K, V> node) {
+        if (node.right != null) {
+            return treeMinimum(node.right);
+        }
+        Node<K, V> p = node.parent;
+        while (p != null && node == p.right) {
+            node = p;
+            p = p.parent;
+        }
+        return p;
+    }
+
+    private class TreeSpliterator implements Spliterator<Entry<K, V>> {
+        // ranks of the next Entry and one past the last Entry
+        private int index;
+        private final int fence;
+        // the node of rank index, found on the first advance
+        private Node<K, V> next;
+
+        TreeSpliterator(int index, int fence) {
+            this.index = index;
+            this.fence = fence;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Entry<K, V>> action) {
+            if (index >= fence) {
+                return false;
+            }
+            Node<K, V> node = next != null ? next : selectNode(index);
+            next = successor(node);
+            index++;
+            action.accept(node);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Entry<K, V>> action) {
+            if (index >= fence) {
+                return;
+            }
+            Node<K, V> node = next != null ? next : selectNode(index);
+            for (; index < fence; index++) {
+                action.accept(node);
+                node = successor(node);
+            }
+            next = null;
+        }
+
+        @Override
+        public Spliterator<Entry<K, V>> trySplit() {
+            int mid = (index + fence) >>> 1;
+            if (mid <= index) {
+                return null;
+            }
+            TreeSpliterator prefix = new TreeSpliterator(index, mid);
+            prefix.next = next;
+            index = mid;
+            next = null;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | DISTINCT | NONNULL | SIZED | SUBSIZED;
+        }
+    }
+
     /**
      * Returns the height of the tree. If the tree is null, the height is -1.
      * @return the height of the tree
@@ -524,26 +975,62 @@ public class BSTMap<K extends Comparable<K>, V> implements MyMap<K, V> {
     }
 
     protected int height(Node<K, V> node) {
-        if (node == null) {
-            return -1;
-        }
-        return 1 + Math.max(height(node.left), height(node.right));
+        return levelSums(node).height;
     }
 
     /**
-     * Returns the number of null references in the tree. Uses a recursive
-     * helper method to count the null references.
-     * @return the number of null references in the tree
+     * The levels of the nodes and null references of a subtree, added up in
+     * one walk by levelSums.
      */
-    public int nullCount() {
-        return nullCount(root);
+    private static final class LevelSums {
+        int height = -1;
+        long nodeLevels, nullCount, nullLevels;
     }
 
-    private int nullCount(Node<K, V> node) {
-        if (node == null) {
-            return 1;
+    /**
+     * Visits every node and null reference of the subtree rooted at the node
+     * with an explicit stack, adding up their levels below it. Unlike
+     * recursion, this cannot overflow the call stack when the tree has
+     * degenerated into a long path, as it does for keys inserted in sorted
+     * order.
+     * @param node the root of the subtree, or null
+     * @return the sums of the levels in the subtree
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private LevelSums levelSums(Node<K, V> node) {
+        LevelSums sums = new LevelSums();
+        Node<K, V>[] nodes = new Node[iteratorStackSize() + 2];
+        int[] levels = new int[nodes.length];
+        nodes[0] = node;
+        int top = 1;
+        while (top > 0) {
+            Node<K, V> n = nodes[--top];
+            int level = levels[top];
+            if (n == null) {
+                sums.nullCount++;
+                sums.nullLevels += level;
+                continue;
+            }
+            sums.height = Math.max(sums.height, level);
+            sums.nodeLevels += level;
+            if (top + 2 > nodes.length) {
+                nodes = Arrays.copyOf(nodes, 2 * nodes.length);
+                levels = Arrays.copyOf(levels, nodes.length);
+            }
+            nodes[top] = n.right;
+            levels[top++] = level + 1;
+            nodes[top] = n.left;
+            levels[top++] = level + 1;
         }
-        return nullCount(node.left) + nullCount(node.right);
+        return sums;
+    }
+
+    /**
+     * Returns the number of null references in the tree.
+     * @return the number of null references in the tree
+     */
+    public int nullCount() {
+        return (int) levelSums(root).nullCount;
     }
 
     /**
@@ -559,16 +1046,8 @@ public class BSTMap<K extends Comparable<K>, V> implements MyMap<K, V> {
      * @return the sum of the levels of each non-null node in the tree starting
      *         at the root
      */
-    public int sumLevels() {
-        return sumLevels(root, 0);
-    }
-
-    private int sumLevels(Node<K, V> node, int level) {
-        if (node == null) {
-            return 0;
-        }
-        return sumLevels(node.left, level + 1) +
-                sumLevels(node.right, level + 1) + level;
+    public long sumLevels() {
+        return levelSums(root).nodeLevels;
     }
 
     /**
@@ -586,37 +1065,105 @@ public class BSTMap<K extends Comparable<K>, V> implements MyMap<K, V> {
      * @return the sum of the levels of each null node in the tree starting at
      *         the root
      */
-    public int sumNullLevels() {
-        return sumNullLevels(root, 0);
-    }
-
-    private int sumNullLevels(Node<K, V> node, int level) {
-        if (node == null) {
-            return level;
-        }
-        return sumNullLevels(node.left, level + 1) +
-                sumNullLevels(node.right, level + 1);
+    public long sumNullLevels() {
+        return levelSums(root).nullLevels;
     }
 
     public double successfulSearchCost() {
         return size == 0 ? 0 : 1 + (double)sumLevels() / size;
     }
 
-    public double unsuccessfulSearchCost() {
-        return (double)sumNullLevels() / nullCount();
+    /**
+     * Returns the average number of comparisons a successful search makes
+     * when each key is searched for as many times as the weight of its value,
+     * such as the count of a word. With every weight equal, this is the
+     * successful search cost. The tree is walked with an explicit stack, so a
+     * long path does not overflow the call stack.
+     * @param weight gives the number of times a key is searched for
+     * @return the weighted average number of comparisons per search, or 0 if
+     *         the weights add up to 0
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public double weightedSearchCost(ToLongFunction<? super V> weight) {
+        pending.flush();
+        Node<K, V>[] nodes = new Node[iteratorStackSize()];
+        int[] levels = new int[nodes.length];
+        int top = 0;
+        double weightedLevels = 0;
+        long totalWeight = 0;
+        if (root != null) {
+            nodes[top++] = root;
+        }
+        while (top > 0) {
+            Node<K, V> n = nodes[--top];
+            int level = levels[top];
+            long w = weight.applyAsLong(n.value);
+            weightedLevels += (double) w * (level + 1);
+            totalWeight += w;
+            if (top + 2 > nodes.length) {
+                nodes = Arrays.copyOf(nodes, 2 * nodes.length + 2);
+                levels = Arrays.copyOf(levels, nodes.length);
+            }
+            if (n.left != null) {
+                nodes[top] = n.left;
+                levels[top++] = level + 1;
+            }
+            if (n.right != null) {
+                nodes[top] = n.right;
+                levels[top++] = level + 1;
+            }
+        }
+        return totalWeight == 0 ? 0 : weightedLevels / totalWeight;
     }
 
-    public int diameter() {
-        return diameter(root);
+    public double unsuccessfulSearchCost() {
+        LevelSums sums = levelSums(root);
+        return (double)sums.nullLevels / sums.nullCount;
     }
 
-    private int diameter(Node<K, V> node) {
-        if (node == null) {
-            return 0;
+    /**
+     * Returns the diameter of the tree. The subtrees are visited in
+     * postorder with an explicit stack: a node is pushed once to have its
+     * children pushed and once more to combine their heights and diameters,
+     * which by then are the top two entries of the results stacks.
+     * @return the diameter of the tree
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public int diameter() {
+        Node<K, V>[] nodes = new Node[2 * iteratorStackSize() + 3];
+        boolean[] expanded = new boolean[nodes.length];
+        int[] heights = new int[nodes.length], diameters = new int[nodes.length];
+        nodes[0] = root;
+        int top = 1, results = 0;
+        while (top > 0) {
+            Node<K, V> n = nodes[--top];
+            if (top + 3 > nodes.length) {
+                nodes = Arrays.copyOf(nodes, 2 * nodes.length);
+                expanded = Arrays.copyOf(expanded, nodes.length);
+            }
+            if (results + 1 > heights.length) {
+                heights = Arrays.copyOf(heights, 2 * heights.length);
+                diameters = Arrays.copyOf(diameters, heights.length);
+            }
+            if (n == null) {
+                heights[results] = -1;
+                diameters[results++] = 0;
+            } else if (!expanded[top]) {
+                expanded[top++] = true;
+                nodes[top] = n.right;
+                expanded[top++] = false;
+                nodes[top] = n.left;
+                expanded[top++] = false;
+            } else {
+                // the left subtree was pushed last, so it finished first
+                results -= 2;
+                int heightLeft = heights[results], heightRight = heights[results + 1];
+                diameters[results] = 1 + Math.max(heightLeft + heightRight + 2,
+                        Math.max(diameters[results], diameters[results + 1]));
+                heights[results++] = 1 + Math.max(heightLeft, heightRight);
+            }
         }
-        return 1 + Math.max(
-                height(node.left) + height(node.right) + 2,
-                Math.max(diameter(node.left), diameter(node.right)));
+        return diameters[0];
     }
 
     private void iterativeInorder() {
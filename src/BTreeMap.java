@@ -0,0 +1,529 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiFunction;
+
+/**
+ * Class for a B+-tree which implements the MyMap interface. Every node holds
+ * up to maxKeys keys in one array, so a search reads a few wide nodes instead
+ * of following a pointer for every comparison the way BSTMap and AVLTreeMap
+ * do. All the values are in the leaves, next to their keys, and the leaves
+ * are linked in key order, so iteration just walks the leaf arrays.
+ * Inner nodes only hold separator keys: every key in children[i] is less
+ * than keys[i], and every key in children[i + 1] is greater than or equal to
+ * it. Every node but the root holds at least maxKeys / 2 keys.
+ * @author Andrew Jung
+ * @version 1.0 October 18, 2026
+ */
+public class BTreeMap<K extends Comparable<K>, V> implements MyMap<K, V> {
+    private static final int DEFAULT_MAX_KEYS = 64;
+    private final int maxKeys, minKeys;
+    private BNode root;
+    private int size, height;
+    // The path of the last descent, reused so that updates never allocate.
+    private Inner[] pathNodes = new Inner[8];
+    private int[] pathIndexes = new int[8];
+
+    /**
+     * A node of the tree. The arrays have room for one key more than
+     * maxKeys, so a node can take the key that overflows it before it is
+     * split.
+     */
+    private abstract static class BNode {
+        final Object[] keys;
+        int count;
+
+        BNode(int capacity) {
+            keys = new Object[capacity];
+        }
+    }
+
+    private static final class Leaf extends BNode {
+        final Object[] values;
+        Leaf next;
+
+        Leaf(int capacity) {
+            super(capacity);
+            values = new Object[capacity];
+        }
+    }
+
+    private static final class Inner extends BNode {
+        final BNode[] children;
+
+        Inner(int capacity) {
+            super(capacity);
+            children = new BNode[capacity + 1];
+        }
+    }
+
+    /**
+     * Creates an empty B+-tree map with nodes of up to 64 keys.
+     */
+    public BTreeMap() {
+        this(DEFAULT_MAX_KEYS);
+    }
+
+    /**
+     * Creates an empty B+-tree map with nodes of up to maxKeys keys.
+     * @param maxKeys the largest number of keys in a node, at least 3
+     * @throws IllegalArgumentException if maxKeys is less than 3
+     */
+    public BTreeMap(int maxKeys) {
+        if (maxKeys < 3) {
+            throw new IllegalArgumentException("maxKeys must be at least 3: "
+                    + maxKeys);
+        }
+        this.maxKeys = maxKeys;
+        this.minKeys = maxKeys / 2;
+        root = new Leaf(maxKeys + 1);
+    }
+
+    /**
+     * Binary searches the first count keys of the node for the key.
+     * @param node the node to search
+     * @param key  the key to look for
+     * @return the index of the key, or -(insertion point + 1) if it is not
+     *         there
+     */
+    @SuppressWarnings("unchecked")
+    private static <K extends Comparable<K>> int search(BNode node, K key) {
+        Object[] keys = node.keys;
+        int low = 0, high = node.count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int compare = key.compareTo((K) keys[mid]);
+            if (compare > 0) {
+                low = mid + 1;
+            } else if (compare < 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Returns the index of the child of the inner node whose subtree would
+     * hold the key.
+     */
+    private static <K extends Comparable<K>> int childIndex(Inner node, K key) {
+        int index = search(node, key);
+        return index >= 0 ? index + 1 : -(index + 1);
+    }
+
+    /**
+     * Walks down to the leaf whose range holds the key, recording the inner
+     * nodes and the child taken at each of them in the path arrays.
+     * @param key the key to look for
+     * @return the leaf whose range holds the key
+     */
+    private Leaf descend(K key) {
+        if (pathNodes.length < height) {
+            pathNodes = Arrays.copyOf(pathNodes, height);
+            pathIndexes = Arrays.copyOf(pathIndexes, height);
+        }
+        BNode node = root;
+        for (int level = 0; level < height; level++) {
+            Inner inner = (Inner) node;
+            int index = childIndex(inner, key);
+            pathNodes[level] = inner;
+            pathIndexes[level] = index;
+            node = inner.children[index];
+        }
+        return (Leaf) node;
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     * @return the number of key-value mappings in this map
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if this map contains no key-value mappings.
+     * @return true if this map contains no key-value mappings
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of levels of inner nodes above the leaves.
+     * @return the height of the tree, 0 if the root is a leaf
+     */
+    public int height() {
+        return height;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or null if this
+     * map contains no mapping for the key.
+     * @param  key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped, or null if this
+     *         map contains no mapping for the key
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        BNode node = root;
+        for (int level = 0; level < height; level++) {
+            Inner inner = (Inner) node;
+            node = inner.children[childIndex(inner, key)];
+        }
+        int index = search(node, key);
+        return index >= 0 ? (V) ((Leaf) node).values[index] : null;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map. If the
+     * map previously contained a mapping for the key, the old value is replaced
+     * by the specified value.
+     * @param key   the key with which the specified value is to be associated
+     * @param value the value to be associated with the specified key
+     * @return the previous value associated with key, or null if there was no
+     *         mapping for key
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(K key, V value) {
+        Leaf leaf = descend(key);
+        int index = search(leaf, key);
+        if (index >= 0) {
+            V oldValue = (V) leaf.values[index];
+            leaf.values[index] = value;
+            return oldValue;
+        }
+        insert(leaf, -(index + 1), key, value);
+        return null;
+    }
+
+    /**
+     * If the specified key is not already associated with a value, associates
+     * it with the given value. Otherwise, replaces the associated value with
+     * the result of the given remapping function applied to the old value and
+     * the given value. The tree is only descended once.
+     * @param key               the key with which the resulting value is to be
+     *                          associated
+     * @param value             the value to use if there is no mapping for key
+     * @param remappingFunction the function to recompute a value if present
+     * @return the new value associated with the specified key
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V merge(K key, V value,
+                   BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        Leaf leaf = descend(key);
+        int index = search(leaf, key);
+        if (index >= 0) {
+            V newValue = remappingFunction.apply((V) leaf.values[index], value);
+            leaf.values[index] = newValue;
+            return newValue;
+        }
+        insert(leaf, -(index + 1), key, value);
+        return value;
+    }
+
+    /**
+     * Inserts the key and value at the index of the leaf found by the last
+     * descent, splitting the leaf and then its ancestors while they
+     * overflow.
+     */
+    private void insert(Leaf leaf, int index, K key, V value) {
+        shiftRight(leaf.keys, index, leaf.count);
+        shiftRight(leaf.values, index, leaf.count);
+        leaf.keys[index] = key;
+        leaf.values[index] = value;
+        leaf.count++;
+        size++;
+        if (leaf.count <= maxKeys) {
+            return;
+        }
+        // move the upper half to a new leaf and pass its first key up
+        Leaf right = new Leaf(maxKeys + 1);
+        int half = leaf.count / 2;
+        right.count = leaf.count - half;
+        System.arraycopy(leaf.keys, half, right.keys, 0, right.count);
+        System.arraycopy(leaf.values, half, right.values, 0, right.count);
+        Arrays.fill(leaf.keys, half, leaf.count, null);
+        Arrays.fill(leaf.values, half, leaf.count, null);
+        leaf.count = half;
+        right.next = leaf.next;
+        leaf.next = right;
+        Object separator = right.keys[0];
+        BNode newChild = right;
+        for (int level = height - 1; level >= 0; level--) {
+            Inner parent = pathNodes[level];
+            int childIndex = pathIndexes[level];
+            shiftRight(parent.keys, childIndex, parent.count);
+            shiftRight(parent.children, childIndex + 1, parent.count + 1);
+            parent.keys[childIndex] = separator;
+            parent.children[childIndex + 1] = newChild;
+            parent.count++;
+            if (parent.count <= maxKeys) {
+                return;
+            }
+            // the middle key moves up; the keys after it go to a new node
+            Inner sibling = new Inner(maxKeys + 1);
+            int middle = parent.count / 2;
+            separator = parent.keys[middle];
+            sibling.count = parent.count - middle - 1;
+            System.arraycopy(parent.keys, middle + 1, sibling.keys, 0,
+                    sibling.count);
+            System.arraycopy(parent.children, middle + 1, sibling.children, 0,
+                    sibling.count + 1);
+            Arrays.fill(parent.keys, middle, parent.count, null);
+            Arrays.fill(parent.children, middle + 1, parent.count + 1, null);
+            parent.count = middle;
+            newChild = sibling;
+        }
+        // the root was split, so the tree grows a level
+        Inner newRoot = new Inner(maxKeys + 1);
+        newRoot.keys[0] = separator;
+        newRoot.children[0] = root;
+        newRoot.children[1] = newChild;
+        newRoot.count = 1;
+        root = newRoot;
+        height++;
+    }
+
+    /**
+     * Removes the mapping for a key from this map if it is present. A node
+     * left with fewer than maxKeys / 2 keys borrows a key from a sibling, or
+     * is merged with it if the sibling has none to spare.
+     * @param key the key whose mapping is to be removed from the map
+     * @return the previous value associated with key, or null if there was no
+     *         mapping for key
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(K key) {
+        Leaf leaf = descend(key);
+        int index = search(leaf, key);
+        if (index < 0) {
+            return null;
+        }
+        V oldValue = (V) leaf.values[index];
+        shiftLeft(leaf.keys, index, leaf.count);
+        shiftLeft(leaf.values, index, leaf.count);
+        leaf.count--;
+        size--;
+        BNode node = leaf;
+        for (int level = height - 1; level >= 0 && node.count < minKeys;
+             level--) {
+            Inner parent = pathNodes[level];
+            int childIndex = pathIndexes[level];
+            if (node instanceof Leaf) {
+                fixLeaf(parent, childIndex);
+            } else {
+                fixInner(parent, childIndex);
+            }
+            node = parent;
+        }
+        if (height > 0 && root.count == 0) {
+            // the root's last two children were merged
+            root = ((Inner) root).children[0];
+            height--;
+        }
+        return oldValue;
+    }
+
+    /**
+     * Refills parent.children[index], a leaf with too few keys, from a
+     * sibling.
+     */
+    private void fixLeaf(Inner parent, int index) {
+        Leaf leaf = (Leaf) parent.children[index];
+        Leaf left = index > 0 ? (Leaf) parent.children[index - 1] : null;
+        Leaf right = index < parent.count
+                ? (Leaf) parent.children[index + 1] : null;
+        if (left != null && left.count > minKeys) {
+            shiftRight(leaf.keys, 0, leaf.count);
+            shiftRight(leaf.values, 0, leaf.count);
+            left.count--;
+            leaf.keys[0] = left.keys[left.count];
+            leaf.values[0] = left.values[left.count];
+            left.keys[left.count] = null;
+            left.values[left.count] = null;
+            leaf.count++;
+            parent.keys[index - 1] = leaf.keys[0];
+        } else if (right != null && right.count > minKeys) {
+            leaf.keys[leaf.count] = right.keys[0];
+            leaf.values[leaf.count] = right.values[0];
+            leaf.count++;
+            shiftLeft(right.keys, 0, right.count);
+            shiftLeft(right.values, 0, right.count);
+            right.count--;
+            parent.keys[index] = right.keys[0];
+        } else if (left != null) {
+            mergeLeaves(left, leaf);
+            removeFromInner(parent, index - 1);
+        } else {
+            mergeLeaves(leaf, right);
+            removeFromInner(parent, index);
+        }
+    }
+
+    private static void mergeLeaves(Leaf left, Leaf right) {
+        System.arraycopy(right.keys, 0, left.keys, left.count, right.count);
+        System.arraycopy(right.values, 0, left.values, left.count, right.count);
+        left.count += right.count;
+        left.next = right.next;
+    }
+
+    /**
+     * Refills parent.children[index], an inner node with too few keys, from
+     * a sibling, moving keys through the separator in parent.
+     */
+    private void fixInner(Inner parent, int index) {
+        Inner node = (Inner) parent.children[index];
+        Inner left = index > 0 ? (Inner) parent.children[index - 1] : null;
+        Inner right = index < parent.count
+                ? (Inner) parent.children[index + 1] : null;
+        if (left != null && left.count > minKeys) {
+            shiftRight(node.keys, 0, node.count);
+            shiftRight(node.children, 0, node.count + 1);
+            node.keys[0] = parent.keys[index - 1];
+            node.children[0] = left.children[left.count];
+            node.count++;
+            parent.keys[index - 1] = left.keys[left.count - 1];
+            left.keys[left.count - 1] = null;
+            left.children[left.count] = null;
+            left.count--;
+        } else if (right != null && right.count > minKeys) {
+            node.keys[node.count] = parent.keys[index];
+            node.children[node.count + 1] = right.children[0];
+            node.count++;
+            parent.keys[index] = right.keys[0];
+            shiftLeft(right.keys, 0, right.count);
+            shiftLeft(right.children, 0, right.count + 1);
+            right.count--;
+        } else if (left != null) {
+            mergeInners(left, parent.keys[index - 1], node);
+            removeFromInner(parent, index - 1);
+        } else {
+            mergeInners(node, parent.keys[index], right);
+            removeFromInner(parent, index);
+        }
+    }
+
+    private static void mergeInners(Inner left, Object separator, Inner right) {
+        left.keys[left.count] = separator;
+        System.arraycopy(right.keys, 0, left.keys, left.count + 1, right.count);
+        System.arraycopy(right.children, 0, left.children, left.count + 1,
+                right.count + 1);
+        left.count += right.count + 1;
+    }
+
+    /**
+     * Removes keys[index] and children[index + 1] from the inner node, after
+     * children[index + 1] was merged into children[index].
+     */
+    private static void removeFromInner(Inner node, int index) {
+        shiftLeft(node.keys, index, node.count);
+        shiftLeft(node.children, index + 1, node.count + 1);
+        node.count--;
+    }
+
+    /**
+     * Moves array[from] to array[length - 1] one place right.
+     */
+    private static void shiftRight(Object[] array, int from, int length) {
+        System.arraycopy(array, from, array, from + 1, length - from);
+    }
+
+    /**
+     * Moves array[from + 1] to array[length - 1] one place left, dropping
+     * array[from] and clearing the last place.
+     */
+    private static void shiftLeft(Object[] array, int from, int length) {
+        System.arraycopy(array, from + 1, array, from, length - from - 1);
+        array[length - 1] = null;
+    }
+
+    /**
+     * Returns an iterator over the Entries in this map, in ascending key
+     * order. It walks the linked leaves, so it needs no stack.
+     * @return an iterator over the Entries in this map
+     */
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+        BNode node = root;
+        for (int level = 0; level < height; level++) {
+            node = ((Inner) node).children[0];
+        }
+        return new LeafItr((Leaf) node);
+    }
+
+    private class LeafItr implements Iterator<Entry<K, V>> {
+        private Leaf leaf;
+        private int index;
+
+        LeafItr(Leaf first) {
+            leaf = first;
+            skipEmptyLeaves();
+        }
+
+        private void skipEmptyLeaves() {
+            while (leaf != null && index == leaf.count) {
+                leaf = leaf.next;
+                index = 0;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return leaf != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Entry<K, V> next() {
+            if (leaf == null) {
+                throw new NoSuchElementException();
+            }
+            Entry<K, V> e = new Entry<>((K) leaf.keys[index],
+                    (V) leaf.values[index]);
+            index++;
+            skipEmptyLeaves();
+            return e;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    public static void main(String[] args) {
+        BTreeMap<Integer, Integer> map = new BTreeMap<>(4);
+        int upperLimit = 1000;
+        for (int i = upperLimit; i >= 1; i--) {
+            map.put(i, i);
+        }
+        for (int i = 1; i <= upperLimit; i += 2) {
+            map.remove(i);
+        }
+        System.out.println("Size  : " + map.size());
+        System.out.println("Height: " + map.height());
+        long receivedSum = 0;
+        int previous = 0;
+        boolean sorted = true;
+        Iterator<Entry<Integer, Integer>> iter = map.iterator();
+        while (iter.hasNext()) {
+            Entry<Integer, Integer> e = iter.next();
+            sorted &= e.key > previous;
+            previous = e.key;
+            receivedSum += e.value;
+        }
+        System.out.println("Expected sum: " + (long) upperLimit / 2
+                * (upperLimit / 2 + 1));
+        System.out.println("Received sum: " + receivedSum);
+        System.out.println("In order    : " + sorted);
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * Class for a reusable view of length chars of a buffer. It hashes
+ * and compares exactly like the String holding the same chars, so it can be
+ * used to look up a String key without creating the String.
+ * @author Andrew Jung
+ * @version 1.0 October 18, 2026
+ */
+public class CharSlice implements Comparable<String> {
+    private char[] chars;
+    private int offset, length, hash;
+
+    /**
+     * Points this slice at the first length chars of the buffer.
+     * @param chars  the buffer holding the chars
+     * @param length the number of chars in the slice
+     */
+    public void set(char[] chars, int length) {
+        set(chars, 0, length, hashCode(chars, 0, length));
+    }
+
+    /**
+     * Points this slice at length chars of the buffer starting at offset,
+     * whose hash code has already been computed.
+     * @param chars  the buffer holding the chars
+     * @param offset the index of the first char
+     * @param length the number of chars in the slice
+     * @param hash   the value hashCode(chars, offset, length) returns
+     */
+    public void set(char[] chars, int offset, int length, int hash) {
+        this.chars = chars;
+        this.offset = offset;
+        this.length = length;
+        this.hash = hash;
+    }
+
+    /**
+     * Returns the hash code String.hashCode would give for the chars.
+     * @param chars  the buffer holding the chars
+     * @param offset the index of the first char
+     * @param length the number of chars
+     * @return the hash code of the String with the same chars
+     */
+    public static int hashCode(char[] chars, int offset, int length) {
+        int h = 0;
+        for (int i = offset; i < offset + length; i++) {
+            h = 31 * h + chars[i];
+        }
+        return h;
+    }
+
+    /**
+     * Returns true if the String holds exactly the given chars.
+     * @param s      the String to compare with
+     * @param chars  the buffer holding the chars
+     * @param offset the index of the first char
+     * @param length the number of chars
+     * @return true if s has the same chars
+     */
+    public static boolean contentEquals(String s, char[] chars, int offset,
+                                        int length) {
+        if (s.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (s.charAt(i) != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of chars in this slice.
+     * @return the number of chars in this slice
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Compares the chars lexicographically with the String, giving the same
+     * result as toString().compareTo(s).
+     * @param s the String to compare with
+     * @return a negative number, zero, or a positive number as this slice is
+     *         less than, equal to, or greater than s
+     */
+    @Override
+    public int compareTo(String s) {
+        int limit = Math.min(length, s.length());
+        for (int i = 0; i < limit; i++) {
+            char c = s.charAt(i);
+            if (chars[offset + i] != c) {
+                return chars[offset + i] - c;
+            }
+        }
+        return length - s.length();
+    }
+
+    /**
+     * Returns the same hash code as the String with the same chars.
+     * @return the hash code of this slice
+     */
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * Returns a new String holding the chars of this slice.
+     * @return a new String holding the chars of this slice
+     */
+    @Override
+    public String toString() {
+        return new String(chars, offset, length);
+    }
+}
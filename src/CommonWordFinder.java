@@ -1,7 +1,28 @@
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 /**
  * A class for finding the n most common words in a text file
@@ -17,7 +38,11 @@ public class CommonWordFinder {
 
     public CommonWordFinder() {
     }
-    public static String[] validDataStructures = {"avl", "hash", "bst"};
+
+    // the order the most common words are printed in: by count, largest first, then by word
+    public static final Comparator<Entry<String,Integer>> MOST_COMMON_FIRST = new sortingByEntry();
+
+    public static String[] validDataStructures = {"avl", "hash", "bst", "counter", "striped", "lockfree", "offheap", "trie", "btree", "splay", "treap"};
 
     /**
      * Returns true if string entered in matches any of the strings in the ValidDataStructures array
@@ -33,6 +58,45 @@ public class CommonWordFinder {
         return false;
     }
 
+    /**
+     * Returns a new empty map of the data structure named by the string
+     * @param dataStructure one of the strings in the validDataStructures array
+     * @return an empty map of the specified data structure
+     */
+    public static MyMap<String, Integer> createMap(String dataStructure){
+        if(dataStructure.equals("bst")){
+            return new BSTMap<>();
+        }
+        else if(dataStructure.equals("avl")){
+            return new AVLTreeMap<>();
+        }
+        else if(dataStructure.equals("counter")){
+            return new WordCounterMap();
+        }
+        else if(dataStructure.equals("striped")){
+            return new StripedHashMap<>();
+        }
+        else if(dataStructure.equals("lockfree")){
+            return new LockFreeWordCounter();
+        }
+        else if(dataStructure.equals("offheap")){
+            return new OffHeapWordMap();
+        }
+        else if(dataStructure.equals("trie")){
+            return new RadixTrieMap();
+        }
+        else if(dataStructure.equals("btree")){
+            return new BTreeMap<>();
+        }
+        else if(dataStructure.equals("splay")){
+            return new SplayTreeMap<>();
+        }
+        else if(dataStructure.equals("treap")){
+            return new TreapMap<>();
+        }
+        return new MyHashMap<>();
+    }
+
     /**
      * returns true if the symbol is a valid; i.e. all lowercase letters, -, '; false otherwise
      * @param symbol the symbol to check
@@ -76,19 +140,542 @@ public class CommonWordFinder {
             arrayOfWords[index] = e;
             index++;
         }
-        Arrays.sort(arrayOfWords, new sortingByEntry());
+        Arrays.sort(arrayOfWords, MOST_COMMON_FIRST);
         return arrayOfWords;
     }
 
+    /**
+     * returns a sorted array of the limit most common words in the map, in the same order as
+     * mostCommonWords(map). Keeps a min-heap of the best limit entries seen so far while going
+     * through the map once, so only O(limit) entries are held and each entry costs O(log limit)
+     * instead of sorting the whole vocabulary. Falls back to the full sort when the limit is
+     * close to the number of unique words
+     * @param map the data structure being used
+     * @param limit the number of most common words wanted
+     * @return a sorted array of the min(limit, map.size()) most common words
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Entry<String,Integer>[] mostCommonWords(MyMap<String,Integer> map, int limit){
+        if(limit <= 0){
+            return new Entry[0];
+        }
+        if(limit >= map.size() / 2){
+            Entry<String,Integer>[] arrayOfWords = mostCommonWords(map);
+            return limit >= arrayOfWords.length ? arrayOfWords : Arrays.copyOf(arrayOfWords, limit);
+        }
+        return mostCommonWords(map.iterator(), limit);
+    }
+
+    /**
+     * returns a sorted array of the limit most common words returned by the iterator, keeping
+     * a min-heap of the best limit entries seen so far
+     * @param iterator the entries to choose from
+     * @param limit the number of most common words wanted, at least 1
+     * @return a sorted array of at most limit of the most common words
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Entry<String,Integer>[] mostCommonWords(Iterator<Entry<String,Integer>> iterator, int limit){
+        // the head of the heap is the least common of the words kept so far
+        Comparator<Entry<String,Integer>> order = MOST_COMMON_FIRST;
+        PriorityQueue<Entry<String,Integer>> heap = new PriorityQueue<>(limit + 1, order.reversed());
+        while(iterator.hasNext()){
+            Entry<String,Integer> e = iterator.next();
+            if(heap.size() < limit){
+                heap.add(e);
+            }
+            // only replace the head if e would come before it in the sorted order
+            else if(order.compare(e, heap.peek()) < 0){
+                heap.poll();
+                heap.add(e);
+            }
+        }
+        Entry<String,Integer>[] arrayOfWords = new Entry[heap.size()];
+        for(int i = arrayOfWords.length - 1; i >= 0; i--){
+            arrayOfWords[i] = heap.poll();
+        }
+        return arrayOfWords;
+    }
+
+    /**
+     * Takes a file and specific data structure, maps the file into memory and scans it byte by
+     * byte with a WordTokenizer, adding each word to the data structure as the key and
+     * incrementing its associated value everytime it comes across the same word. A compressed
+     * file (see DecompressionStage.isCompressed) is decompressed while it is counted instead
+     * @param file the text file to read and parse
+     * @param map the data structure to store words in
+     * @throws IOException throws an IO exception if there is a problem reading the file
+     */
+    public static void parseAndStoreWords(File file, MyMap<String,Integer> map) throws IOException{
+        if(DecompressionStage.isCompressed(file)){
+            parseAndStoreCompressedWords(file, map, null, 1);
+            return;
+        }
+        try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)){
+            WordTokenizer tokenizer = new WordTokenizer(map);
+            tokenizer.feed(channel, 0, channel.size());
+            tokenizer.finish();
+        }
+    }
+
+    // number of reads -io async keeps in flight at once
+    static final int ASYNC_BUFFERS = 4;
+
+    /**
+     * Takes a file and specific data structure and reads the file with an
+     * AsynchronousFileChannel, keeping ASYNC_BUFFERS reads in flight so the next parts of the file
+     * are read from disk while the current one is scanned by a WordTokenizer. Words are counted
+     * the same way as parseAndStoreWords
+     * @param file the text file to read and parse
+     * @param map the data structure to store words in
+     * @throws IOException throws an IO exception if there is a problem reading the file
+     */
+    public static void parseAndStoreWordsAsync(File file, MyMap<String,Integer> map) throws IOException{
+        try(AsynchronousFileChannel channel = AsynchronousFileChannel.open(file.toPath(), StandardOpenOption.READ)){
+            WordTokenizer tokenizer = new WordTokenizer(map);
+            tokenizer.feed(channel, 0, channel.size(), ASYNC_BUFFERS);
+            tokenizer.finish();
+        }
+    }
+
+    /**
+     * Counts the words of every file under the directory into map with a CorpusCounter, printing
+     * the number of bytes counted so far and the rate to standard error once a second
+     * @param directory the root of the corpus
+     * @param map the data structure to store words in
+     * @param mapFactory creates the partial map of each worker
+     * @param parallelism the number of files or chunks to count at the same time
+     * @throws IOException throws an IO exception if there is a problem reading a file
+     */
+    public static void parseAndStoreCorpus(Path directory, MyMap<String,Integer> map,
+                                           Supplier<MyMap<String,Integer>> mapFactory,
+                                           int parallelism) throws IOException{
+        CorpusCounter counter = new CorpusCounter(mapFactory, parallelism);
+        List<Path> files = CorpusCounter.findFiles(directory, path -> true);
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        reporter.scheduleAtFixedRate(() -> System.err.println(counter.progress()),
+                1, 1, TimeUnit.SECONDS);
+        try{
+            counter.count(files, map);
+        }
+        finally{
+            reporter.shutdownNow();
+        }
+        System.err.println(counter.progress());
+    }
+
+    // size of each buffer that standard input is read into
+    static final int STREAM_BUFFER_SIZE = 1 << 20;
+    // number of buffers the reading thread can fill while the counting thread is busy
+    static final int STREAM_BUFFERS = 4;
+    // queued in place of a buffer once standard input has ended
+    private static final ByteBuffer END_OF_STREAM = ByteBuffer.allocate(0);
+    // queued at the front, ahead of any buffers, when a timed snapshot is due
+    private static final ByteBuffer SNAPSHOT_DUE = ByteBuffer.allocate(0);
+
+    /**
+     * Reads UTF-8 text from the stream and counts its words in map, so input of any length can be
+     * piped in. A reading thread fills a ring of STREAM_BUFFERS reusable buffers and queues them,
+     * and the calling thread counts the words of each one and gives it back, so reading goes on
+     * while the words are counted or a snapshot of the limit most common words is printed.
+     * A snapshot is printed each time snapshotBytes more bytes have been counted, and every
+     * snapshotNanos nanoseconds by a timer, even while the stream has nothing to read. A snapshot
+     * goes through the map once with a heap of limit entries instead of copying it. If map is a
+     * ConcurrentMyMap the snapshots are printed on the timer's thread while counting goes on (a
+     * snapshot by size that is due while the last one is still printing is skipped); otherwise
+     * the counting thread prints them between buffers, the timed ones ahead of any queued buffer
+     * @param in the stream to read
+     * @param map the data structure to store words in
+     * @param limit the number of most common words in each snapshot
+     * @param snapshotBytes the number of bytes between snapshots, or 0 for none by size
+     * @param snapshotNanos the time between snapshots in nanoseconds, or 0 for none by time
+     * @throws IOException throws an IO exception if there is a problem reading the stream
+     */
+    public static void parseAndStoreWords(InputStream in, MyMap<String,Integer> map, int limit,
+                                          long snapshotBytes, long snapshotNanos) throws IOException{
+        WordTokenizer tokenizer = new WordTokenizer(map);
+        BlockingQueue<ByteBuffer> empty = new ArrayBlockingQueue<>(STREAM_BUFFERS);
+        BlockingDeque<ByteBuffer> full = new LinkedBlockingDeque<>();
+        for(int i = 0; i < STREAM_BUFFERS; i++){
+            empty.add(ByteBuffer.allocate(STREAM_BUFFER_SIZE));
+        }
+        IOException[] failure = new IOException[1];
+        Thread reader = new Thread(() -> {
+            try{
+                boolean ended = false;
+                while(!ended){
+                    ByteBuffer buffer = empty.take();
+                    byte[] bytes = buffer.array();
+                    // keep filling the buffer while more input is ready, but hand over what has
+                    // arrived as soon as the stream would block
+                    int length = 0;
+                    do{
+                        int read = in.read(bytes, length, bytes.length - length);
+                        if(read == -1){
+                            ended = true;
+                            break;
+                        }
+                        length += read;
+                    } while(length < bytes.length && in.available() > 0);
+                    buffer.clear();
+                    buffer.limit(length);
+                    full.putLast(buffer);
+                }
+            }
+            catch(IOException e){
+                failure[0] = e;
+            }
+            catch(InterruptedException e){
+                // counting stopped early
+            }
+            finally{
+                full.offerLast(END_OF_STREAM);
+            }
+        }, "standard input");
+        // a reader blocked on an idle pipe must not keep the program running
+        reader.setDaemon(true);
+        reader.start();
+
+        boolean concurrent = map instanceof ConcurrentMyMap;
+        ScheduledExecutorService snapshotter = Executors.newSingleThreadScheduledExecutor();
+        AtomicLong total = new AtomicLong();
+        AtomicBoolean snapshotQueued = new AtomicBoolean();
+        long start = System.nanoTime();
+        if(snapshotNanos > 0){
+            snapshotter.scheduleAtFixedRate(() -> {
+                if(concurrent){
+                    printSnapshot(snapshotHeader(total.get(), start, map), map, limit);
+                }
+                // only the counting thread may read the map, so it is asked to print the snapshot
+                // before it counts another buffer
+                else if(snapshotQueued.compareAndSet(false, true)){
+                    full.offerFirst(SNAPSHOT_DUE);
+                }
+            }, snapshotNanos, snapshotNanos, TimeUnit.NANOSECONDS);
+        }
+        Future<?> lastSnapshot = null;
+        try{
+            while(true){
+                ByteBuffer buffer = full.takeFirst();
+                if(buffer == END_OF_STREAM){
+                    break;
+                }
+                if(buffer == SNAPSHOT_DUE){
+                    snapshotQueued.set(false);
+                    printSnapshot(snapshotHeader(total.get(), start, map), map, limit);
+                    continue;
+                }
+                int read = buffer.remaining();
+                tokenizer.feed(buffer);
+                empty.add(buffer);
+                long counted = total.addAndGet(read);
+                if(snapshotBytes <= 0 || counted / snapshotBytes == (counted - read) / snapshotBytes){
+                    continue;
+                }
+                String header = snapshotHeader(counted, start, map);
+                if(!concurrent){
+                    printSnapshot(header, map, limit);
+                }
+                else if(lastSnapshot == null || lastSnapshot.isDone()){
+                    lastSnapshot = snapshotter.submit(() -> printSnapshot(header, map, limit));
+                }
+            }
+            if(failure[0] != null){
+                throw failure[0];
+            }
+            tokenizer.finish();
+        }
+        catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading standard input");
+        }
+        finally{
+            reader.interrupt();
+            // a snapshot that is still printing must finish before the final counts
+            snapshotter.shutdown();
+            try{
+                snapshotter.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            }
+            catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while printing a snapshot");
+            }
+        }
+    }
+
+    /**
+     * returns the line printed above a snapshot
+     * @param bytes the number of bytes counted so far
+     * @param start the time counting started, from System.nanoTime
+     * @param map the data structure being counted into
+     * @return the line to print above the words of a snapshot
+     */
+    private static String snapshotHeader(long bytes, long start, MyMap<String,Integer> map){
+        return String.format("Snapshot after %.1f MB, %.1f s, %d unique words:",
+                bytes / (1024.0 * 1024.0), (System.nanoTime() - start) / 1e9, map.size());
+    }
+
+    /**
+     * prints the header followed by the limit most common words counted in the map so far
+     * @param header the line to print above the words
+     * @param map the data structure being counted into
+     * @param limit the number of most common words to print
+     */
+    private static void printSnapshot(String header, MyMap<String,Integer> map, int limit){
+        Entry<String,Integer>[] arrayOfWords = mostCommonWords(map.iterator(), limit);
+        // one print call, so the snapshot is not split up by other output
+        System.out.print(header + System.lineSeparator()
+                + stringOfMostCommonWords(arrayOfWords.length, arrayOfWords));
+    }
+
+    /**
+     * Splits the file into one byte range per thread and parses the ranges at the same time.
+     * Each cut is moved forward to the next white space byte so no word is split between two
+     * ranges. Every range is counted into its own private map made by mapFactory (the first
+     * range uses map itself), and the private maps are merged into map at the end, so the
+     * counts are the same as parsing the whole file on one thread. If map is a ConcurrentMyMap,
+     * every range is counted straight into map and there is nothing to merge. A compressed file
+     * can not be split into ranges, so it goes to parseAndStoreCompressedWords
+     * @param file the text file to read and parse
+     * @param map the data structure to store words in
+     * @param mapFactory creates the private map for each of the other ranges
+     * @param threads the number of ranges to parse at the same time
+     * @throws IOException throws an IO exception if there is a problem reading the file
+     */
+    public static void parseAndStoreWords(File file, MyMap<String,Integer> map,
+                                          Supplier<MyMap<String,Integer>> mapFactory,
+                                          int threads) throws IOException{
+        if(DecompressionStage.isCompressed(file)){
+            parseAndStoreCompressedWords(file, map, mapFactory, threads);
+            return;
+        }
+        if(threads <= 1){
+            parseAndStoreWords(file, map);
+            return;
+        }
+        try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)){
+            long[] cuts = findCuts(channel, threads);
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try{
+                List<Future<MyMap<String,Integer>>> partialMaps = new ArrayList<>();
+                for(int i = 0; i < threads; i++){
+                    long start = cuts[i];
+                    long end = cuts[i + 1];
+                    MyMap<String,Integer> partialMap =
+                            i == 0 || map instanceof ConcurrentMyMap ? map : mapFactory.get();
+                    partialMaps.add(executor.submit(() -> {
+                        WordTokenizer tokenizer = new WordTokenizer(partialMap);
+                        tokenizer.feed(channel, start, end);
+                        tokenizer.finish();
+                        return partialMap;
+                    }));
+                }
+                // wait for every range before merging so map is no longer being written to
+                List<MyMap<String,Integer>> results = new ArrayList<>();
+                for(Future<MyMap<String,Integer>> partialMap : partialMaps){
+                    results.add(partialMap.get());
+                }
+                mergePartialMaps(map, results.subList(1, results.size()));
+            }
+            catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while parsing " + file);
+            }
+            catch(ExecutionException e){
+                if(e.getCause() instanceof IOException){
+                    throw (IOException) e.getCause();
+                }
+                throw new IOException(e.getCause());
+            }
+            finally{
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Decompresses a GZIP or zlib file with a DecompressionStage on its own thread while the
+     * text is counted, so the file never has to be decompressed to disk. With one thread the
+     * calling thread counts into map; with more, every thread counts into its own private map
+     * made by mapFactory (the first uses map itself, and all of them use map if it is a
+     * ConcurrentMyMap), and the private maps are merged into map at the end
+     * @param file the compressed text file to read and parse
+     * @param map the data structure to store words in
+     * @param mapFactory creates the private map for each of the other threads
+     * @param threads the number of threads to count with
+     * @throws IOException throws an IO exception if there is a problem reading or decompressing the file
+     */
+    public static void parseAndStoreCompressedWords(File file, MyMap<String,Integer> map,
+                                                    Supplier<MyMap<String,Integer>> mapFactory,
+                                                    int threads) throws IOException{
+        try(DecompressionStage stage = new DecompressionStage(DecompressionStage.open(file), threads)){
+            if(threads <= 1){
+                countBuffers(stage, map);
+                return;
+            }
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try{
+                List<Future<MyMap<String,Integer>>> partialMaps = new ArrayList<>();
+                for(int i = 0; i < threads; i++){
+                    MyMap<String,Integer> partialMap =
+                            i == 0 || map instanceof ConcurrentMyMap ? map : mapFactory.get();
+                    partialMaps.add(executor.submit(() -> {
+                        countBuffers(stage, partialMap);
+                        return partialMap;
+                    }));
+                }
+                List<MyMap<String,Integer>> results = new ArrayList<>();
+                for(Future<MyMap<String,Integer>> partialMap : partialMaps){
+                    results.add(partialMap.get());
+                }
+                mergePartialMaps(map, results.subList(1, results.size()));
+            }
+            catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while parsing " + file);
+            }
+            catch(ExecutionException e){
+                if(e.getCause() instanceof IOException){
+                    throw (IOException) e.getCause();
+                }
+                throw new IOException(e.getCause());
+            }
+            finally{
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Counts the words of the file with a WordPipeline: a reader thread fills buffers, tokenizer
+     * threads split them into batches of words, and aggregator threads count the batches into
+     * shards of the map, which are merged into map at the end. A compressed file is decompressed
+     * by the reader thread. How busy each stage was is printed to standard error afterwards
+     * @param file the text file to read and parse
+     * @param map the data structure to store words in
+     * @param mapFactory creates the shard of each aggregator after the first
+     * @param tokenizers the number of tokenizer threads
+     * @param aggregators the number of aggregator threads
+     * @throws IOException throws an IO exception if there is a problem reading the file
+     */
+    public static void parseAndStoreWordsWithPipeline(File file, MyMap<String,Integer> map,
+                                                      Supplier<MyMap<String,Integer>> mapFactory,
+                                                      int tokenizers, int aggregators) throws IOException{
+        InputStream in = DecompressionStage.isCompressed(file)
+                ? DecompressionStage.open(file) : new FileInputStream(file);
+        WordPipeline pipeline = new WordPipeline(mapFactory, tokenizers, aggregators);
+        pipeline.count(in, map);
+        System.err.print(pipeline.utilization());
+    }
+
+    /**
+     * Counts the words of the buffers of the stage into map until the stage runs out. Every
+     * buffer ends at white space, so the buffers can be shared out between threads
+     * @param stage the stage to take buffers from
+     * @param map the data structure to store words in
+     * @throws IOException throws an IO exception if there is a problem decompressing
+     */
+    private static void countBuffers(DecompressionStage stage, MyMap<String,Integer> map) throws IOException{
+        WordTokenizer tokenizer = new WordTokenizer(map);
+        ByteBuffer buffer;
+        while((buffer = stage.take()) != null){
+            tokenizer.feed(buffer);
+            stage.release(buffer);
+        }
+        tokenizer.finish();
+    }
+
+    /**
+     * Returns the boundaries of the byte ranges for parsing the file in parallel. Range i is
+     * cuts[i] to cuts[i+1]. Every cut other than the first and last is at a white space byte,
+     * which can not be inside a word or a multi-byte character
+     * @param channel the file to split
+     * @param ranges the number of ranges
+     * @return an array of ranges + 1 non-decreasing offsets
+     * @throws IOException throws an IO exception if there is a problem reading the file
+     */
+    static long[] findCuts(FileChannel channel, int ranges) throws IOException{
+        long size = channel.size();
+        long[] cuts = new long[ranges + 1];
+        cuts[ranges] = size;
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        for(int i = 1; i < ranges; i++){
+            long position = Math.max(cuts[i - 1], size / ranges * i);
+            // move the cut forward until it lands on a white space byte or the end of the file
+            search:
+            while(position < size){
+                buffer.clear();
+                int read = channel.read(buffer, position);
+                if(read <= 0){
+                    position = size;
+                    break;
+                }
+                for(int j = 0; j < read; j++){
+                    if(WordTokenizer.TYPES[buffer.get(j) & 0xFF] == WordTokenizer.WHITESPACE){
+                        position += j;
+                        break search;
+                    }
+                }
+                position += read;
+            }
+            cuts[i] = Math.min(position, size);
+        }
+        return cuts;
+    }
+
+    /**
+     * Adds the counts of the partial maps to map. Binary search trees are merged all at once
+     * through their sorted iterators and rebuilt balanced with BSTMap.mergeAll; other maps
+     * take the counts one word at a time. A partial map that is map itself is skipped
+     * @param map the map that receives the counts
+     * @param partialMaps the maps whose counts are added
+     */
+    public static void mergePartialMaps(MyMap<String,Integer> map,
+                                        List<MyMap<String,Integer>> partialMaps){
+        List<BSTMap<String,Integer>> partialTrees = new ArrayList<>();
+        for(MyMap<String,Integer> partialMap : partialMaps){
+            if(partialMap == map){
+                continue;
+            }
+            if(map instanceof BSTMap && partialMap instanceof BSTMap<String,Integer> partialTree){
+                partialTrees.add(partialTree);
+            }
+            else{
+                mergeInto(map, partialMap);
+            }
+        }
+        if(!partialTrees.isEmpty()){
+            ((BSTMap<String,Integer>) map).mergeAll(partialTrees, Integer::sum);
+        }
+    }
+
+    /**
+     * Adds the count of every word in source to the count of the same word in target
+     * @param target the map that receives the counts
+     * @param source the map whose counts are added
+     */
+    public static void mergeInto(MyMap<String,Integer> target, MyMap<String,Integer> source){
+        Iterator<Entry<String,Integer>> iterator = source.iterator();
+        while(iterator.hasNext()){
+            Entry<String,Integer> e = iterator.next();
+            if(target instanceof WordCounter counter){
+                counter.increment(e.key, e.value);
+            }
+            else{
+                target.merge(e.key, e.value, Integer::sum);
+            }
+        }
+    }
+
     /**
      * Takes a file and specific data structure, parses through the file character by character
      * building a string until it forms a word, then adding it to the data structure as the key,
-     * incrementing its associated value everytime it comes across the same word
+     * incrementing its associated value everytime it comes across the same word.
+     * This is the original reader kept as a fallback and for comparing against parseAndStoreWords
      * @param file the text file to read and parse
      * @param map the data structure to store words in
      * @throws IOException throws an IO exception if there is a problem reading the file
      */
-    public static void parseAndStoreWords(File file, MyMap<String,Integer> map) throws IOException{
+    public static void parseAndStoreWordsWithReader(File file, MyMap<String,Integer> map) throws IOException{
         // how to use BufferedReader was referenced from
         // https://www.candidjava.com/tutorial/program-to-read-a-file-character-by-character/
         FileReader fileReader = new FileReader(file);
@@ -119,15 +706,8 @@ public class CommonWordFinder {
             }
             // sb should now contain a word, so convert to string
             String word = sb.toString();
-            // if the word does not exist in map, then add with value 1
-            if(map.get(word) == null){
-                map.put(word,1);
-            }
-            // else increment the existing value by 1
-            else{
-                int result = map.get(word);
-                map.put(word,result+1);
-            }
+            // add the word with value 1, or increment the existing value by 1
+            map.merge(word, 1, Integer::sum);
         }
         // close file
         bufferedReader.close();
@@ -200,19 +780,140 @@ public class CommonWordFinder {
     }
 
     public static void main(String[] args){
+        // options come before the positional arguments
+        String ioMode = "mmap";
+        // 0 until -threads is given
+        int threads = 0;
+        // 0 until -shards is given, then the number of aggregators of -io pipeline
+        int shards = 0;
+        boolean complete = false;
+        // snapshots of standard input are printed every 10 seconds unless set otherwise
+        long snapshotBytes = 0;
+        long snapshotNanos = 10_000_000_000L;
+        boolean snapshotSet = false;
+        int argIndex = 0;
+        while(argIndex < args.length && args[argIndex].startsWith("-") && !args[argIndex].equals("-")){
+            String option = args[argIndex];
+            if(option.equals("-io") && argIndex + 1 < args.length){
+                ioMode = args[argIndex + 1];
+                if(!ioMode.equals("mmap") && !ioMode.equals("reader") && !ioMode.equals("pipeline")
+                        && !ioMode.equals("async")){
+                    System.err.println("Error: Invalid I/O mode " + ioMode + " received.");
+                    System.exit(1);
+                }
+                argIndex += 2;
+            }
+            else if(option.equals("-threads") && argIndex + 1 < args.length){
+                try{
+                    threads = Integer.parseInt(args[argIndex + 1]);
+                }
+                catch(NumberFormatException e){
+                    threads = 0;
+                }
+                if(threads <= 0){
+                    System.err.println("Error: Invalid thread count " + args[argIndex + 1] + " received.");
+                    System.exit(1);
+                }
+                argIndex += 2;
+            }
+            else if(option.equals("-shards") && argIndex + 1 < args.length){
+                try{
+                    shards = Integer.parseInt(args[argIndex + 1]);
+                }
+                catch(NumberFormatException e){
+                    shards = 0;
+                }
+                if(shards <= 0){
+                    System.err.println("Error: Invalid shard count " + args[argIndex + 1] + " received.");
+                    System.exit(1);
+                }
+                argIndex += 2;
+            }
+            else if(option.equals("-complete")){
+                complete = true;
+                argIndex++;
+            }
+            else if((option.equals("-snapshot-mb") || option.equals("-snapshot-sec"))
+                    && argIndex + 1 < args.length){
+                long amount;
+                try{
+                    amount = Long.parseLong(args[argIndex + 1]);
+                }
+                catch(NumberFormatException e){
+                    amount = 0;
+                }
+                if(amount <= 0){
+                    System.err.println("Error: Invalid snapshot interval " + args[argIndex + 1] + " received.");
+                    System.exit(1);
+                }
+                // the first interval given replaces the default one
+                if(!snapshotSet){
+                    snapshotNanos = 0;
+                    snapshotSet = true;
+                }
+                if(option.equals("-snapshot-mb")){
+                    snapshotBytes = amount * 1024 * 1024;
+                }
+                else{
+                    snapshotNanos = TimeUnit.SECONDS.toNanos(amount);
+                }
+                argIndex += 2;
+            }
+            else{
+                System.err.println("Error: Invalid option " + option + " received.");
+                System.exit(1);
+            }
+        }
+        args = Arrays.copyOfRange(args, argIndex, args.length);
         // checks whether the command line arguments are formatted correctly
+        if((ioMode.equals("reader") || ioMode.equals("async")) && threads > 1){
+            System.err.println("Error: -threads can only be used with -io mmap or pipeline.");
+            System.exit(1);
+        }
+        if(shards > 0 && !ioMode.equals("pipeline")){
+            System.err.println("Error: -shards can only be used with -io pipeline.");
+            System.exit(1);
+        }
         if(args.length < 2 || args.length > 3){
-            System.err.println("Usage: java CommonWordFinder <filename> <bst|avl|hash> [limit]");
+            System.err.println("Usage: java CommonWordFinder [-io mmap|reader|pipeline|async] [-threads N] [-shards S] [-complete] [-snapshot-mb N] [-snapshot-sec T] <filename|directory|-> <bst|avl|hash|counter|striped|lockfree|offheap|trie|btree|splay|treap> [limit]");
             System.exit(1);
         }
         // assuming file will be in src file with program
         String filename = args[0];
         File file = new File(filename);
+        // a filename of - reads the words from standard input
+        boolean streaming = filename.equals("-");
+        // a directory counts every file under it together
+        boolean corpus = file.isDirectory();
+        if(DecompressionStage.isCompressed(file) && (ioMode.equals("reader") || ioMode.equals("async"))){
+            System.err.println("Error: -io " + ioMode + " can only be used with an uncompressed file.");
+            System.exit(1);
+        }
+        if(corpus && !ioMode.equals("mmap")){
+            System.err.println("Error: -io " + ioMode + " can only be used with a file.");
+            System.exit(1);
+        }
+        if(streaming && !ioMode.equals("mmap")){
+            System.err.println("Error: -io " + ioMode + " can only be used with a file.");
+            System.exit(1);
+        }
+        if(streaming && threads > 1){
+            System.err.println("Error: -threads can only be used with a file or directory.");
+            System.exit(1);
+        }
+        if(streaming && complete){
+            System.err.println("Error: -complete reads prefixes from standard input, so it cannot be used with -.");
+            System.exit(1);
+        }
+        if(!streaming && snapshotSet){
+            System.err.println("Error: -snapshot-mb and -snapshot-sec can only be used with -.");
+            System.exit(1);
+        }
         String dataStructure = args[1];
         // initialize limit as 10, which is the base case
         int limit = 10;
         // checks whether the file exists or not
-        if(!file.isFile()){
+        if(!streaming && !corpus && !file.isFile()){
             System.err.println("Error: Cannot open file " + args[0] +  " for input.");
             System.exit(1);
         }
@@ -231,34 +932,75 @@ public class CommonWordFinder {
             }
         }
         // initialize map based on the user input
-        MyMap<String, Integer> map;
-        if(dataStructure.equals("bst")){
-            map = new BSTMap<>();
-        }
-        else if(dataStructure.equals("avl")){
-            map = new AVLTreeMap<>();
-        }
-        else{
-            map = new MyHashMap<>();
-        }
+        MyMap<String, Integer> map = createMap(dataStructure);
         // parse and store words in map from file
         try{
-            parseAndStoreWords(file, map);
+            if(streaming){
+                parseAndStoreWords(System.in, map, limit, snapshotBytes, snapshotNanos);
+            }
+            else if(corpus){
+                parseAndStoreCorpus(file.toPath(), map, () -> createMap(dataStructure),
+                        threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+            }
+            else if(ioMode.equals("reader")){
+                parseAndStoreWordsWithReader(file, map);
+            }
+            else if(ioMode.equals("async")){
+                parseAndStoreWordsAsync(file, map);
+            }
+            else if(ioMode.equals("pipeline")){
+                // one tokenizer and one aggregator per thread unless -shards says otherwise
+                int tokenizers = Math.max(threads, 1);
+                parseAndStoreWordsWithPipeline(file, map, () -> createMap(dataStructure),
+                        tokenizers, shards > 0 ? shards : tokenizers);
+            }
+            else{
+                parseAndStoreWords(file, map, () -> createMap(dataStructure), threads);
+            }
         }
         // catches an IO exception when reading
         catch(IOException e){
-            System.err.println("Error: An I/O error occurred reading " + args[0] + ".");
+            System.err.println("Error: An I/O error occurred reading "
+                    + (streaming ? "standard input" : args[0]) + ".");
         }
         // map size indicates the number of unique words
         System.out.print("Total unique words: " + map.size() + System.lineSeparator());
-        // get sorted array of most common words
-        Entry<String,Integer>[] arrayOfWords = mostCommonWords(map);
         // if limit is greater than the number of unique words,
         // set limit to map size
         if(map.size() < limit){
             limit = map.size();
         }
+        // get sorted array of the limit most common words
+        Entry<String,Integer>[] arrayOfWords = mostCommonWords(map, limit);
         printMostCommonWords(limit, arrayOfWords);
+        if(complete){
+            completePrefixes(map, Math.max(limit, 1));
+        }
+    }
+
+    /**
+     * builds an AutocompleteIndex of the counted words, then reads prefixes from standard input,
+     * one per line, and prints the limit most common words starting with each prefix
+     * @param map the counted words
+     * @param limit the number of completions to print for each prefix
+     */
+    public static void completePrefixes(MyMap<String,Integer> map, int limit){
+        AutocompleteIndex index = new AutocompleteIndex(map, limit);
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+        try{
+            String prefix;
+            while((prefix = in.readLine()) != null){
+                prefix = prefix.strip();
+                long start = System.nanoTime();
+                Entry<String,Integer>[] completions = index.complete(prefix);
+                double micros = (System.nanoTime() - start) / 1e3;
+                System.out.printf("Completions of \"%s\" (%.1f us):%n", prefix, micros);
+                printMostCommonWords(completions.length, completions);
+            }
+        }
+        catch(IOException e){
+            System.err.println("Error: An I/O error occurred reading standard input.");
+        }
     }
 
 }
@@ -0,0 +1,10 @@
+/**
+ * Interface for a MyMap whose methods can be called from several threads at
+ * the same time without any outside locking. When CommonWordFinder parses a
+ * file with several threads into a map like this, every thread counts into
+ * the same map instead of into its own partial map.
+ * @author Andrew Jung
+ * @version 1.0 October 18, 2026
+ */
+public interface ConcurrentMyMap<K, V> extends MyMap<K, V> {
+}
@@ -0,0 +1,324 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Class for counting the words of a whole corpus of files, such as every file
+ * under a directory, into one map. The files are cut into pieces: a small
+ * file is one piece, and a file larger than CHUNK_SIZE is cut at white space
+ * into pieces of about that size, so one huge file cannot hold up the end of
+ * the run. The pieces are counted by a ForkJoinPool with tasks that split
+ * their pieces in two halves of equal bytes, so idle workers steal the
+ * larger halves of busy ones. Each worker counts into its own partial map,
+ * unless the map is a ConcurrentMyMap, and the partial maps are merged at
+ * the end. The bytes counted so far can be read at any time for progress.
+ * @author Andrew Jung
+ * @version 1.0 October 18, 2026
+ */
+public class CorpusCounter {
+    // Files larger than this are cut into pieces of about this size.
+    static final long CHUNK_SIZE = 1L << 26;
+    // A task with fewer bytes than this counts its pieces without splitting.
+    static final long MIN_TASK_BYTES = 1L << 20;
+    // Pieces up to this size are read into a buffer instead of mapped.
+    static final int READ_BUFFER_SIZE = 1 << 20;
+
+    private final Supplier<MyMap<String, Integer>> mapFactory;
+    private final int parallelism;
+    private final LongAdder bytesCounted = new LongAdder();
+    private volatile long totalBytes, startTime;
+    private volatile int fileCount;
+
+    /**
+     * The bytes from start to end of one file.
+     */
+    private static final class Piece {
+        final Path path;
+        final long start, end;
+
+        Piece(Path path, long start, long end) {
+            this.path = path;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /**
+     * Creates a counter that counts with the given number of workers.
+     * @param mapFactory  creates the partial map of each worker
+     * @param parallelism the number of workers
+     * @throws IllegalArgumentException if parallelism is not positive
+     */
+    public CorpusCounter(Supplier<MyMap<String, Integer>> mapFactory,
+                         int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive: "
+                    + parallelism);
+        }
+        this.mapFactory = mapFactory;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Returns the regular files in the directory tree under root that pass
+     * the filter, in a fixed order. Symbolic links to directories are not
+     * followed. If root is a regular file, it is the only file returned. A
+     * file or directory that cannot be read is skipped and reported on
+     * standard error, so one unreadable entry does not stop a whole corpus.
+     * @param root   the directory to search
+     * @param filter decides which files to count
+     * @return the files to count
+     * @throws IOException if the walk itself fails
+     */
+    public static List<Path> findFiles(Path root, Predicate<Path> filter)
+            throws IOException {
+        List<Path> files = new ArrayList<>();
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file,
+                                             BasicFileAttributes attrs) {
+                if (!attrs.isRegularFile() || !filter.test(file)) {
+                    return FileVisitResult.CONTINUE;
+                }
+                if (Files.isReadable(file)) {
+                    files.add(file);
+                } else {
+                    System.err.println("Skipping " + file + ": not readable");
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                System.err.println("Skipping " + file + ": " + e);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        Collections.sort(files);
+        return files;
+    }
+
+    /**
+     * Counts the words of all of the files into map.
+     * @param files the files to count
+     * @param map   the data structure to store the words in
+     * @throws IOException if there is a problem reading a file
+     */
+    public void count(List<Path> files, MyMap<String, Integer> map)
+            throws IOException {
+        startTime = System.nanoTime();
+        List<Piece> pieces = cutIntoPieces(files);
+        fileCount = files.size();
+        long[] offsets = new long[pieces.size() + 1];
+        for (int i = 0; i < pieces.size(); i++) {
+            Piece piece = pieces.get(i);
+            offsets[i + 1] = offsets[i] + piece.end - piece.start;
+        }
+        totalBytes = offsets[pieces.size()];
+
+        List<MyMap<String, Integer>> partialMaps =
+                Collections.synchronizedList(new ArrayList<>());
+        ThreadLocal<MyMap<String, Integer>> workerMap;
+        if (map instanceof ConcurrentMyMap) {
+            workerMap = ThreadLocal.withInitial(() -> map);
+        } else {
+            workerMap = ThreadLocal.withInitial(() -> {
+                MyMap<String, Integer> partialMap = mapFactory.get();
+                partialMaps.add(partialMap);
+                return partialMap;
+            });
+        }
+        ThreadLocal<ByteBuffer> workerBuffer =
+                ThreadLocal.withInitial(() -> ByteBuffer.allocate(READ_BUFFER_SIZE));
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new CountTask(pieces, offsets, 0, pieces.size(),
+                    workerMap, workerBuffer));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdown();
+        }
+        CommonWordFinder.mergePartialMaps(map, partialMaps);
+    }
+
+    /**
+     * Returns the pieces of the files, cutting every uncompressed file larger
+     * than CHUNK_SIZE at white space. Empty files have no pieces.
+     * @param files the files to cut
+     * @return the pieces of the files
+     * @throws IOException if there is a problem reading a file
+     */
+    private static List<Piece> cutIntoPieces(List<Path> files)
+            throws IOException {
+        List<Piece> pieces = new ArrayList<>();
+        for (Path path : files) {
+            long size = Files.size(path);
+            // a compressed file can only be read from the start
+            if (size <= CHUNK_SIZE
+                    || DecompressionStage.isCompressed(path.toFile())) {
+                if (size > 0) {
+                    pieces.add(new Piece(path, 0, size));
+                }
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.READ)) {
+                long[] cuts = CommonWordFinder.findCuts(channel,
+                        (int) ((size + CHUNK_SIZE - 1) / CHUNK_SIZE));
+                for (int i = 0; i + 1 < cuts.length; i++) {
+                    if (cuts[i] < cuts[i + 1]) {
+                        pieces.add(new Piece(path, cuts[i], cuts[i + 1]));
+                    }
+                }
+            }
+        }
+        return pieces;
+    }
+
+    /**
+     * Counts the pieces from lo to hi, splitting them into two tasks of
+     * about the same number of bytes while there is more than one piece and
+     * at least MIN_TASK_BYTES bytes.
+     */
+    private final class CountTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Piece> pieces;
+        private final long[] offsets;
+        private final int lo, hi;
+        private final ThreadLocal<MyMap<String, Integer>> workerMap;
+        private final ThreadLocal<ByteBuffer> workerBuffer;
+
+        CountTask(List<Piece> pieces, long[] offsets, int lo, int hi,
+                  ThreadLocal<MyMap<String, Integer>> workerMap,
+                  ThreadLocal<ByteBuffer> workerBuffer) {
+            this.pieces = pieces;
+            this.offsets = offsets;
+            this.lo = lo;
+            this.hi = hi;
+            this.workerMap = workerMap;
+            this.workerBuffer = workerBuffer;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > 1 && offsets[hi] - offsets[lo] >= MIN_TASK_BYTES) {
+                // the first piece that ends past the middle byte
+                int mid = Arrays.binarySearch(offsets, lo + 1, hi,
+                        (offsets[lo] + offsets[hi]) / 2);
+                mid = mid >= 0 ? mid : -mid - 1;
+                mid = Math.max(lo + 1, Math.min(hi - 1, mid));
+                invokeAll(new CountTask(pieces, offsets, lo, mid, workerMap,
+                                workerBuffer),
+                        new CountTask(pieces, offsets, mid, hi, workerMap,
+                                workerBuffer));
+                return;
+            }
+            try {
+                for (int i = lo; i < hi; i++) {
+                    countPiece(pieces.get(i), workerMap.get(), workerBuffer.get());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Counts the words of one piece into map. A small piece is read into the
+     * worker's buffer, since mapping a file costs more than copying a small
+     * one; a larger piece is mapped. A compressed file is decompressed into
+     * the buffer by the worker itself, since the other workers are already
+     * counting other files at the same time.
+     * @param piece  the bytes to count
+     * @param map    the map of the worker
+     * @param buffer the read buffer of the worker
+     * @throws IOException if there is a problem reading the file
+     */
+    private void countPiece(Piece piece, MyMap<String, Integer> map,
+                            ByteBuffer buffer) throws IOException {
+        WordTokenizer tokenizer = new WordTokenizer(map);
+        if (DecompressionStage.isCompressed(piece.path.toFile())) {
+            try (InputStream in = DecompressionStage.open(piece.path.toFile())) {
+                int read;
+                while ((read = in.read(buffer.array())) != -1) {
+                    buffer.clear();
+                    buffer.limit(read);
+                    tokenizer.feed(buffer);
+                }
+            }
+            tokenizer.finish();
+            bytesCounted.add(piece.end - piece.start);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(piece.path,
+                StandardOpenOption.READ)) {
+            if (piece.end - piece.start <= buffer.capacity()) {
+                buffer.clear();
+                buffer.limit((int) (piece.end - piece.start));
+                long position = piece.start;
+                while (buffer.hasRemaining()) {
+                    int read = channel.read(buffer, position);
+                    if (read < 0) {
+                        break; // the file got shorter since it was measured
+                    }
+                    position += read;
+                }
+                buffer.flip();
+                tokenizer.feed(buffer);
+            } else {
+                tokenizer.feed(channel, piece.start, piece.end);
+            }
+        }
+        tokenizer.finish();
+        bytesCounted.add(piece.end - piece.start);
+    }
+
+    /**
+     * Returns the number of bytes counted so far.
+     * @return the number of bytes counted so far
+     */
+    public long bytesCounted() {
+        return bytesCounted.sum();
+    }
+
+    /**
+     * Returns the number of bytes in all of the files being counted, or 0
+     * before counting starts.
+     * @return the total number of bytes
+     */
+    public long totalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Returns a line telling how much of the corpus has been counted and how
+     * fast, such as "Counted 120.0 of 640.0 MB in 12 files (210.3 MB/s)".
+     * @return the progress of the count
+     */
+    public String progress() {
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+        double counted = bytesCounted() / (1024.0 * 1024.0);
+        return String.format("Counted %.1f of %.1f MB in %d files (%.1f MB/s)",
+                counted, totalBytes / (1024.0 * 1024.0), fileCount,
+                seconds > 0 ? counted / seconds : 0);
+    }
+}
@@ -0,0 +1,204 @@
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Class for decompressing a GZIP or zlib (Deflate) stream on its own thread
+ * while other threads count the words of the text, so decompression and
+ * counting overlap. The text is handed over in a fixed set of reusable
+ * buffers that go around two bounded queues: the decompression thread takes
+ * an empty buffer, fills it and queues it as full, and a counting thread
+ * takes it, tokenizes it and gives it back. When the counting threads fall
+ * behind, the decompression thread waits for a buffer instead of reading
+ * ahead without limit.
+ * Every full buffer ends at a white space byte, with the rest of the text
+ * carried over to the start of the next buffer, so no word or UTF-8
+ * character is split between two buffers and any counting thread can take
+ * any buffer. A buffer that fills up without any white space is replaced
+ * with one twice its size, so even a longer run is never split, and the
+ * larger buffer stays in the set from then on.
+ * @author Andrew Jung
+ * @version 1.0 October 18, 2026
+ */
+public class DecompressionStage implements Closeable {
+    // Size of each buffer handed to the counting threads.
+    static final int BUFFER_SIZE = 1 << 20;
+    // Queued after the last full buffer. Taking it puts it back, so every
+    // counting thread sees it.
+    private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+    private final InputStream in;
+    private final BlockingQueue<ByteBuffer> empty, full;
+    private final Thread thread;
+    private volatile IOException failure;
+
+    /**
+     * Starts decompressing the stream on a new thread.
+     * @param in        the decompressed stream to read, such as one returned
+     *                  by open
+     * @param consumers the number of threads that will take buffers
+     */
+    public DecompressionStage(InputStream in, int consumers) {
+        this.in = in;
+        // every consumer can hold a buffer while one is being filled and
+        // one more waits in the queue
+        int buffers = Math.max(consumers, 1) + 2;
+        empty = new ArrayBlockingQueue<>(buffers);
+        full = new ArrayBlockingQueue<>(buffers + 1);
+        for (int i = 0; i < buffers; i++) {
+            empty.add(ByteBuffer.allocate(BUFFER_SIZE));
+        }
+        thread = new Thread(this::decompress, "decompression");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Returns true if the file is compressed in a format open can read,
+     * judging by its name: .gz for GZIP, and .zz or .deflate for zlib.
+     * @param file the file to check
+     * @return true if the file is compressed
+     */
+    public static boolean isCompressed(File file) {
+        String name = file.getName();
+        return name.endsWith(".gz") || name.endsWith(".zz")
+                || name.endsWith(".deflate");
+    }
+
+    /**
+     * Opens a stream of the decompressed contents of the file.
+     * @param file a file for which isCompressed returns true
+     * @return the decompressed contents of the file
+     * @throws IOException if the file cannot be opened or its header is
+     *                     not valid
+     */
+    public static InputStream open(File file) throws IOException {
+        InputStream raw = new BufferedInputStream(new FileInputStream(file),
+                1 << 16);
+        try {
+            if (file.getName().endsWith(".gz")) {
+                return new GZIPInputStream(raw, 1 << 16);
+            }
+            return new InflaterInputStream(raw);
+        } catch (IOException e) {
+            raw.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Fills empty buffers from the stream and queues them as full until the
+     * stream ends, then queues END.
+     */
+    private void decompress() {
+        byte[] carry = new byte[0];
+        try {
+            boolean ended = false;
+            while (!ended) {
+                ByteBuffer buffer = empty.take();
+                if (buffer.capacity() <= carry.length) {
+                    // the carry came from a grown buffer and needs room to
+                    // read more after it
+                    buffer = ByteBuffer.allocate(carry.length + BUFFER_SIZE);
+                }
+                byte[] bytes = buffer.array();
+                int length = carry.length;
+                System.arraycopy(carry, 0, bytes, 0, length);
+                int end;
+                while (true) {
+                    while (length < bytes.length) {
+                        int read = in.read(bytes, length, bytes.length - length);
+                        if (read < 0) {
+                            ended = true;
+                            break;
+                        }
+                        length += read;
+                    }
+                    // unless the stream has ended, hold back the bytes after
+                    // the last white space for the next buffer
+                    end = length;
+                    while (!ended && end > 0 && WordTokenizer.TYPES[bytes[end - 1] & 0xFF]
+                            != WordTokenizer.WHITESPACE) {
+                        end--;
+                    }
+                    if (end > 0 || ended) {
+                        break;
+                    }
+                    // no white space at all, so grow the buffer and read on
+                    // rather than split a word
+                    buffer = ByteBuffer.allocate(bytes.length * 2);
+                    System.arraycopy(bytes, 0, buffer.array(), 0, length);
+                    bytes = buffer.array();
+                }
+                carry = Arrays.copyOfRange(bytes, end, length);
+                buffer.clear();
+                buffer.limit(end);
+                full.put(buffer);
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            // close was called
+        } finally {
+            try {
+                in.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+            full.offer(END);
+        }
+    }
+
+    /**
+     * Waits for the next full buffer. The buffer must be given back with
+     * release once it has been read.
+     * @return the next buffer of text, or null if the stream has ended
+     * @throws IOException if the stream could not be read or decompressed
+     */
+    public ByteBuffer take() throws IOException {
+        ByteBuffer buffer;
+        try {
+            buffer = full.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while decompressing");
+        }
+        if (buffer == END) {
+            full.offer(END);
+            if (failure != null) {
+                throw failure;
+            }
+            return null;
+        }
+        return buffer;
+    }
+
+    /**
+     * Gives a buffer returned by take back to be filled again.
+     * @param buffer the buffer that has been read
+     */
+    public void release(ByteBuffer buffer) {
+        empty.offer(buffer);
+    }
+
+    /**
+     * Stops the decompression thread if it is still running and closes the
+     * stream.
+     */
+    @Override
+    public void close() {
+        thread.interrupt();
+    }
+}
@@ -6,6 +6,10 @@
 public class Entry<K, V> {
     K key;
     V value;
+    // While counted is true, the value is an Integer that is out of date and
+    // count holds the actual value; see PendingCounts.
+    int count;
+    boolean counted;
 
     /**
      * Creates a key-value pair.
@@ -0,0 +1,475 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * Class for a thread-safe word counter that never takes a lock. Words live in
+ * open-addressed tables of slots that are only ever filled, never emptied: a
+ * new word is inserted by a compare-and-set on an empty slot, and its count
+ * is updated with compare-and-set on the node in the slot. A word whose count
+ * keeps losing compare-and-set races is given a LongAdder, which spreads its
+ * increments over padded cells so threads counting the same hot word stop
+ * fighting over one cache line.
+ * When a word finds no empty slot within MAX_PROBES slots of its home slot,
+ * it moves on to the next table, which is four times bigger and is created
+ * on demand. Whether a word moves on only depends on slots that never change
+ * again once filled, so two threads inserting the same word always agree on
+ * the table it goes in. Words already in a table stay there, so the map never
+ * stops to copy itself.
+ * A removed word keeps its slot: remove swaps its node for a tombstone with
+ * the same key by compare-and-set, which get, size and iteration skip, and
+ * counting the word again swaps the tombstone for a new node the same way.
+ * Since the slot is never emptied, the word still goes in the same table.
+ * @author Andrew Jung
+ * @version 1.0 October 18, 2026
+ */
+public class LockFreeWordCounter
+        implements ConcurrentMyMap<String, Integer>, WordCounter {
+    private static final int INITIAL_CAPACITY = 1 << 12;
+    private static final int MAX_PROBES = 32;
+    private static final VarHandle COUNT, HOT_COUNT, NEXT;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            COUNT = lookup.findVarHandle(CountNode.class, "count", int.class);
+            HOT_COUNT = lookup.findVarHandle(CountNode.class, "hotCount",
+                    LongAdder.class);
+            NEXT = lookup.findVarHandle(Table.class, "next", Table.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Table first = new Table(INITIAL_CAPACITY);
+    private final LongAdder numEntries = new LongAdder();
+
+    /**
+     * A word and its count. The count is count plus the sum of hotCount once
+     * the word has become hot. A removed node is a tombstone holding the slot
+     * of a word that has been removed.
+     */
+    private static final class CountNode {
+        final String key;
+        final int hash;
+        final boolean removed;
+        volatile int count;
+        volatile LongAdder hotCount;
+
+        CountNode(String key, int hash, int count) {
+            this(key, hash, count, false);
+        }
+
+        private CountNode(String key, int hash, int count, boolean removed) {
+            this.key = key;
+            this.hash = hash;
+            this.count = count;
+            this.removed = removed;
+        }
+
+        static CountNode tombstone(String key, int hash) {
+            return new CountNode(key, hash, 0, true);
+        }
+
+        int value() {
+            LongAdder hot = hotCount;
+            return hot == null ? count : (int) (count + hot.sum());
+        }
+    }
+
+    private static final class Table {
+        final AtomicReferenceArray<CountNode> slots;
+        final int mask;
+        volatile Table next;
+
+        Table(int capacity) {
+            slots = new AtomicReferenceArray<>(capacity);
+            mask = capacity - 1;
+        }
+
+        Table nextTable() {
+            Table n = next;
+            if (n == null) {
+                Table created = new Table(slots.length() * 4);
+                n = NEXT.compareAndSet(this, null, created) ? created : next;
+            }
+            return n;
+        }
+    }
+
+    private static int hash(String key) {
+        return spread(key.hashCode());
+    }
+
+    private static int spread(int hashCode) {
+        int h = hashCode * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the node of the key, or null if the key has never been in the
+     * map. The node is a tombstone if the key has been removed.
+     * @param key  the key to look for
+     * @param hash the hash of the key
+     * @return the node of the key, or null
+     */
+    private CountNode find(String key, int hash) {
+        for (Table table = first; table != null; table = table.next) {
+            for (int probe = 0; probe < MAX_PROBES; probe++) {
+                CountNode node = table.slots.get((hash + probe) & table.mask);
+                if (node == null) {
+                    // the key would have been put in this empty slot
+                    return null;
+                }
+                if (node.hash == hash && node.key.equals(key)) {
+                    return node;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the node of the key, inserting a node with the given count if
+     * the key is not in the map yet or replacing its tombstone with it if the
+     * key has been removed. The caller can tell whether its count
+     * was used by checking whether the returned node is the one it passed in.
+     * @param key     the key to look for
+     * @param hash    the hash of the key
+     * @param created the node to insert if the key is missing
+     * @return the node of the key
+     */
+    private CountNode findOrInsert(String key, int hash, CountNode created) {
+        for (Table table = first; ; table = table.nextTable()) {
+            for (int probe = 0; probe < MAX_PROBES; probe++) {
+                int slot = (hash + probe) & table.mask;
+                CountNode node = table.slots.get(slot);
+                if (node == null) {
+                    if (table.slots.compareAndSet(slot, null, created)) {
+                        numEntries.increment();
+                        return created;
+                    }
+                    // another thread filled the slot first; check its key
+                    node = table.slots.get(slot);
+                }
+                if (node.hash == hash && node.key.equals(key)) {
+                    while (node.removed) {
+                        if (table.slots.compareAndSet(slot, node, created)) {
+                            numEntries.increment();
+                            return created;
+                        }
+                        // another thread revived the word first
+                        node = table.slots.get(slot);
+                    }
+                    return node;
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds delta to the node's count. The first failed compare-and-set marks
+     * the word as hot and moves its increments to a LongAdder.
+     * @param node  the node to add to
+     * @param delta the amount to add
+     */
+    private static void addTo(CountNode node, int delta) {
+        LongAdder hot = node.hotCount;
+        if (hot == null) {
+            int count = node.count;
+            if (COUNT.compareAndSet(node, count, count + delta)) {
+                return;
+            }
+            LongAdder created = new LongAdder();
+            hot = HOT_COUNT.compareAndSet(node, null, created)
+                    ? created : node.hotCount;
+        }
+        hot.add(delta);
+    }
+
+    /**
+     * Adds delta to the count of the word, starting from 0 if the word is not
+     * in the map yet. Never blocks. Concurrent increments are never lost.
+     * @param word  the word whose count is to be increased
+     * @param delta the amount to add to the count
+     * @return the count of the word just after the increment; with other
+     *         threads counting the same hot word it may include some of
+     *         their increments too
+     */
+    @Override
+    public int increment(String word, int delta) {
+        int hash = hash(word);
+        CountNode node = find(word, hash);
+        if (node == null || node.removed) {
+            CountNode created = new CountNode(word, hash, delta);
+            node = findOrInsert(word, hash, created);
+            if (node == created) {
+                return delta;
+            }
+        }
+        addTo(node, delta);
+        return node.value();
+    }
+
+    /**
+     * Adds delta to the count of the word held in the chars. A word that is
+     * already in the map is found by comparing the chars with its key, so a
+     * String is only made the first time the word is seen.
+     * @param chars  the buffer holding the word
+     * @param offset the index of the first char of the word
+     * @param length the number of chars in the word
+     * @param delta  the amount to add to the count
+     * @return the count of the word just after the increment
+     */
+    @Override
+    public int increment(char[] chars, int offset, int length, int delta) {
+        int hash = spread(CharSlice.hashCode(chars, offset, length));
+        for (Table table = first; table != null; table = table.next) {
+            for (int probe = 0; probe < MAX_PROBES; probe++) {
+                CountNode node = table.slots.get((hash + probe) & table.mask);
+                if (node == null) {
+                    return increment(new String(chars, offset, length), delta);
+                }
+                if (node.hash == hash && CharSlice.contentEquals(node.key,
+                        chars, offset, length)) {
+                    if (node.removed) {
+                        return increment(node.key, delta);
+                    }
+                    addTo(node, delta);
+                    return node.value();
+                }
+            }
+        }
+        return increment(new String(chars, offset, length), delta);
+    }
+
+    /**
+     * Returns the number of words in this map.
+     * @return the number of words in this map
+     */
+    @Override
+    public int size() {
+        return numEntries.intValue();
+    }
+
+    /**
+     * Returns true if this map contains no words.
+     * @return true if this map contains no words
+     */
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns the count of the word, or null if the word is not in the map.
+     * @param key the word whose count is to be returned
+     * @return the count of the word, or null if this map contains no mapping
+     *         for the word
+     */
+    @Override
+    public Integer get(String key) {
+        CountNode node = find(key, hash(key));
+        return node != null && !node.removed ? node.value() : null;
+    }
+
+    /**
+     * Sets the count of the word. This is meant for loading counts before
+     * counting starts: increments of the same word made at the same time by
+     * other threads may be lost.
+     * @param key   the word with which the count is to be associated
+     * @param value the count to be associated with the word
+     * @return the previous count of the word, or null if there was none
+     */
+    @Override
+    public Integer put(String key, Integer value) {
+        int hash = hash(key);
+        CountNode created = new CountNode(key, hash, value);
+        CountNode node = findOrInsert(key, hash, created);
+        if (node == created) {
+            return null;
+        }
+        int oldValue = node.value();
+        node.hotCount = null;
+        node.count = value;
+        return oldValue;
+    }
+
+    /**
+     * If the word is not in the map, inserts it with the given count.
+     * Otherwise, adds the difference between the remapped count and the old
+     * count to the word's count. For Integer::sum that difference is always
+     * value, so concurrent merges that add counts are exact; other remapping
+     * functions may see a stale old count while other threads are writing.
+     * @param key               the word with which the count is to be
+     *                          associated
+     * @param value             the count to use if the word is not in the map
+     * @param remappingFunction the function to recompute a count if present
+     * @return the new count of the word
+     */
+    @Override
+    public Integer merge(String key, Integer value,
+                         BiFunction<? super Integer, ? super Integer,
+                                 ? extends Integer> remappingFunction) {
+        int hash = hash(key);
+        CountNode created = new CountNode(key, hash, value);
+        CountNode node = findOrInsert(key, hash, created);
+        if (node == created) {
+            return value;
+        }
+        int oldValue = node.value();
+        int newValue = remappingFunction.apply(oldValue, value);
+        addTo(node, newValue - oldValue);
+        return newValue;
+    }
+
+    /**
+     * Removes the word from this map by swapping its node for a tombstone,
+     * so the slot stays filled and the word goes back in the same slot if it
+     * is counted again. Like put, this is not meant to race with counting:
+     * increments of the same word made at the same time by other threads may
+     * be lost.
+     * @param key the word whose count is to be removed from the map
+     * @return the count of the word, or null if it was not in the map
+     */
+    @Override
+    public Integer remove(String key) {
+        int hash = hash(key);
+        for (Table table = first; table != null; table = table.next) {
+            for (int probe = 0; probe < MAX_PROBES; probe++) {
+                int slot = (hash + probe) & table.mask;
+                CountNode node = table.slots.get(slot);
+                if (node == null) {
+                    return null;
+                }
+                if (node.hash == hash && node.key.equals(key)) {
+                    CountNode tombstone = CountNode.tombstone(key, hash);
+                    while (!node.removed) {
+                        if (table.slots.compareAndSet(slot, node, tombstone)) {
+                            numEntries.decrement();
+                            return node.value();
+                        }
+                        // the word was removed or revived by another thread
+                        node = table.slots.get(slot);
+                    }
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of tables that words have been spread over.
+     * @return the number of tables in this map
+     */
+    public int getTableCount() {
+        int tables = 0;
+        for (Table table = first; table != null; table = table.next) {
+            tables++;
+        }
+        return tables;
+    }
+
+    /**
+     * Returns a weakly consistent iterator over the words in this map. Each
+     * Entry holds the count of its word at the time it was returned. Words
+     * inserted during the iteration may or may not be returned.
+     * @return an iterator over the Entries in this map
+     */
+    @Override
+    public Iterator<Entry<String, Integer>> iterator() {
+        return new CounterItr();
+    }
+
+    private class CounterItr implements Iterator<Entry<String, Integer>> {
+        private Table table = first;
+        private int index;
+        private CountNode current;
+
+        CounterItr() {
+            advanceToNextEntry();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return current != null;
+        }
+
+        @Override
+        public Entry<String, Integer> next() {
+            if (current == null) {
+                throw new NoSuchElementException();
+            }
+            Entry<String, Integer> e =
+                    new Entry<>(current.key, current.value());
+            index++;
+            advanceToNextEntry();
+            return e;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        private void advanceToNextEntry() {
+            current = null;
+            while (table != null) {
+                while (index < table.slots.length()) {
+                    current = table.slots.get(index);
+                    if (current != null && !current.removed) {
+                        return;
+                    }
+                    current = null;
+                    index++;
+                }
+                table = table.next;
+                index = 0;
+            }
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        LockFreeWordCounter map = new LockFreeWordCounter();
+        int threadCount = 8, words = 20000, rounds = 20;
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            threads[t] = new Thread(() -> {
+                for (int r = 0; r < rounds; r++) {
+                    for (int i = 0; i < words; i++) {
+                        map.increment(String.valueOf(i), 1);
+                        // a hot word that every thread hits all the time
+                        map.increment("the", 1);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long receivedSum = 0;
+        Iterator<Entry<String, Integer>> iter = map.iterator();
+        while (iter.hasNext()) {
+            receivedSum += iter.next().value;
+        }
+        System.out.println("Size            : " + map.size());
+        System.out.println("Tables          : " + map.getTableCount());
+        System.out.println("Count of the    : " + map.get("the"));
+        System.out.println("Expected sum    : "
+                + 2L * threadCount * words * rounds);
+        System.out.println("Received sum    : " + receivedSum);
+        // a removed word keeps its slot and comes back when counted again
+        System.out.println("Removed the     : " + map.remove("the"));
+        System.out.println("Count of the    : " + map.get("the"));
+        System.out.println("Size            : " + map.size());
+        map.increment("the", 1);
+        System.out.println("Count of the    : " + map.get("the"));
+        System.out.println("Size            : " + map.size());
+    }
+}
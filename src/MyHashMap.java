@@ -1,4 +1,7 @@
 import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 
 /**
  * Class for a simple hash map.
@@ -6,21 +9,51 @@ import java.util.Iterator;
  * @version 1.0.1 November 15, 2022
  * Some methods were provided by my professor
  */
-public class MyHashMap<K extends Comparable<K>, V> implements MyMap<K, V> {
+public class MyHashMap<K extends Comparable<K>, V> implements MyMap<K, V>, WordCounter {
     // Helpful list of primes available at:
     // https://www2.cs.arizona.edu/icon/oddsends/primes.htm
     private static final int[] primes = new int[] {
             101, 211, 431, 863, 1733, 3467, 6947, 13901, 27803, 55609, 111227,
             222461 };
     private static final double MAX_LOAD_FACTOR = 0.75;
+    // Largest table that can be allocated; the table stops growing here.
+    private static final int MAX_TABLE_SIZE = Integer.MAX_VALUE - 8;
+    // Number of old buckets moved to the new table on each put, merge or
+    // remove while a resize is in progress. The new table is about twice as
+    // big, so moving more than 4/3 of a bucket per insertion is enough to
+    // finish before the next resize is due.
+    private static final int MIGRATION_STEP = 4;
     private MapEntry<K, V>[] table;
-    private int primeIndex, numEntries;
+    // The table being emptied into table during an incremental resize, or
+    // null if no resize is in progress. Every entry is in exactly one of the
+    // two tables.
+    private MapEntry<K, V>[] oldTable;
+    private int primeIndex, numEntries, migrationIndex;
+    // counts added by increment that are not in their entries' values yet
+    private final PendingCounts pending = new PendingCounts();
+    private final CharSlice slice = new CharSlice();
 
     @SuppressWarnings("unchecked")
     public MyHashMap() {
         table = new MapEntry[primes[primeIndex]];
     }
 
+    /**
+     * Returns the bucket of the key in a table of the given length. Taking
+     * the absolute value of the remainder instead of the hash code keeps
+     * Integer.MIN_VALUE hash codes from producing a negative index.
+     * @param key    the key to find the bucket of
+     * @param length the number of buckets
+     * @return the index of the key's bucket
+     */
+    private int indexFor(K key, int length) {
+        return indexFor(key.hashCode(), length);
+    }
+
+    private int indexFor(int hash, int length) {
+        return Math.abs(hash % length);
+    }
+
     /**
      * Returns the number of buckets in this MyHashMap.
      * @return the number of buckets in this MyHashMap
@@ -56,19 +89,26 @@ public class MyHashMap<K extends Comparable<K>, V> implements MyMap<K, V> {
      */
     @Override
     public V get(K key) {
-        int index = Math.abs(key.hashCode()) % table.length;
-        if(table[index] == null){
-            return null;
+        pending.flush();
+        MapEntry<K, V> curr = table[indexFor(key, table.length)];
+        //if a resize is in progress, the key may not have been moved yet
+        if(oldTable != null){
+            MapEntry<K, V> old = findInChain(key, oldTable[indexFor(key, oldTable.length)]);
+            if(old != null){
+                return old.value;
+            }
         }
-        else{
-            MapEntry<K, V> curr = table[index];
-            while(curr != null){
-                int compare = key.compareTo(curr.key);
-                if(compare == 0){
-                    return curr.value;
-                }
-                curr = curr.next;
+        curr = findInChain(key, curr);
+        return curr != null ? curr.value : null;
+    }
+
+    private MapEntry<K, V> findInChain(Comparable<? super K> key, MapEntry<K, V> curr) {
+        while(curr != null){
+            int compare = key.compareTo(curr.key);
+            if(compare == 0){
+                return curr;
             }
+            curr = curr.next;
         }
         return null;
     }
@@ -84,14 +124,16 @@ public class MyHashMap<K extends Comparable<K>, V> implements MyMap<K, V> {
      */
     @Override
     public V put(K key, V value) {
+        pending.flush();
         MapEntry<K, V> n = new MapEntry<>(key, value);
-        int index = Math.abs(key.hashCode()) % table.length;
+        int index = prepareBucket(key);
         //if the table at that index is null
         //then just set that index to the new entry
         MapEntry<K, V> chain = table[index];
         if(chain == null){
             table[index] = n;
             numEntries++;
+            growIfNeeded();
             return null;
         }
         else{
@@ -113,41 +155,202 @@ public class MyHashMap<K extends Comparable<K>, V> implements MyMap<K, V> {
             curr.next = n;
             numEntries++;
         }
-        if(getLoadFactor() > MAX_LOAD_FACTOR && getTableSize() < 222461){
-            rehash();
-        }
+        growIfNeeded();
         return null;
     }
 
+    /**
+     * If the specified key is not already associated with a value, associates
+     * it with the given value. Otherwise, replaces the associated value with
+     * the result of the given remapping function applied to the old value and
+     * the given value. The chain is only walked once.
+     * @param key               the key with which the resulting value is to be
+     *                          associated
+     * @param value             the value to use if there is no mapping for key
+     * @param remappingFunction the function to recompute a value if present
+     * @return the new value associated with the specified key
+     */
+    @Override
+    public V merge(K key, V value,
+                   BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        pending.flush();
+        int index = prepareBucket(key);
+        MapEntry<K, V> pointer = table[index];
+        MapEntry<K, V> curr = null;
+        while(pointer != null){
+            //if key is found then combine the old and given values
+            if(key.compareTo(pointer.key) == 0){
+                pointer.value = remappingFunction.apply(pointer.value, value);
+                return pointer.value;
+            }
+            curr = pointer;
+            pointer = pointer.next;
+        }
+        //key is not in the chain, so add a new entry to the end of it
+        MapEntry<K, V> n = new MapEntry<>(key, value);
+        if(curr == null){
+            table[index] = n;
+        }
+        else{
+            curr.next = n;
+        }
+        numEntries++;
+        growIfNeeded();
+        return value;
+    }
+
+    /**
+     * Adds delta to the count of the word, starting from 0 if the word is not
+     * in the map yet. The map must be from Strings to Integers. The count is
+     * kept in the word's entry as an int, so no Integer is boxed for it.
+     * @param word  the word whose count is to be increased
+     * @param delta the amount to add to the count
+     * @return the new count of the word
+     */
+    @Override
+    public int increment(String word, int delta) {
+        return addToCount(word, word.hashCode(), delta);
+    }
+
+    /**
+     * Adds delta to the count of the word held in chars[offset] to
+     * chars[offset + length - 1]. A String is only made for a word that is
+     * not in the map yet.
+     * @param chars  the buffer holding the word
+     * @param offset the index of the first char of the word
+     * @param length the number of chars in the word
+     * @param delta  the amount to add to the count
+     * @return the new count of the word
+     */
+    @Override
+    public int increment(char[] chars, int offset, int length, int delta) {
+        slice.set(chars, offset, length, CharSlice.hashCode(chars, offset, length));
+        return addToCount(slice, slice.hashCode(), delta);
+    }
+
+    /**
+     * Adds delta to the count of the key the probe stands in for. The chain
+     * is only walked once: a new key is added to the end of the chain the
+     * walk stopped at.
+     */
     @SuppressWarnings("unchecked")
-    private void rehash() {
-        MapEntry<K, V>[] entriesToRehash = new MapEntry[numEntries+1];
-        int index = 0;
-        Iterator<Entry<K, V>> itr = iterator();
-        while(itr.hasNext()){
-            Entry<K, V> e = itr.next();
-            //getting rid of pointers
-            MapEntry<K, V> s = new MapEntry<>(e.key, e.value);
-            entriesToRehash[index++] = s;
-        }
-        primeIndex++;
-        table = new MapEntry[primes[primeIndex]];
-        for(int i = 0; i < entriesToRehash.length-1; i++){
-            MapEntry<K, V> entry = entriesToRehash[i];
-            K key = entry.key;
-            int in = Math.abs(key.hashCode()) % table.length;
-            MapEntry<K, V> chain = table[in];
-            if(chain == null){
-                table[in] = entry;
+    private int addToCount(Comparable<String> probe, int hash, int delta) {
+        int index = prepareBucket(hash);
+        MapEntry<K, V> pointer = table[index];
+        MapEntry<K, V> curr = null;
+        while(pointer != null){
+            if(probe.compareTo((String) pointer.key) == 0){
+                return pending.add(pointer, delta);
             }
-            else{
-                MapEntry<K, V> curr = chain;
-                MapEntry<K, V> prev = null;
-                while(curr != null){
-                    prev = curr;
-                    curr = curr.next;
+            curr = pointer;
+            pointer = pointer.next;
+        }
+        //only a word seen for the first time gets a String
+        MapEntry<K, V> n = new MapEntry<>((K) probe.toString(), (V) Integer.valueOf(delta));
+        if(curr == null){
+            table[index] = n;
+        }
+        else{
+            curr.next = n;
+        }
+        numEntries++;
+        growIfNeeded();
+        return delta;
+    }
+
+    /**
+     * Gets the key's bucket in table ready for an update and returns its
+     * index. If a resize is in progress, the key's old bucket is moved over
+     * first, so the key can only be in table, and a few more old buckets are
+     * moved to make progress on the resize.
+     * @param key the key about to be updated
+     * @return the index of the key's bucket in table
+     */
+    private int prepareBucket(K key) {
+        return prepareBucket(key.hashCode());
+    }
+
+    private int prepareBucket(int hash) {
+        if(oldTable != null){
+            migrateBucket(indexFor(hash, oldTable.length));
+            migrateBuckets(MIGRATION_STEP);
+        }
+        return indexFor(hash, table.length);
+    }
+
+    /**
+     * Starts an incremental resize once the load factor is over
+     * MAX_LOAD_FACTOR. The table has no size limit: after the list of primes
+     * runs out, each new size is the next prime past double the old size.
+     */
+    @SuppressWarnings("unchecked")
+    private void growIfNeeded() {
+        if(getLoadFactor() <= MAX_LOAD_FACTOR || table.length >= MAX_TABLE_SIZE){
+            return;
+        }
+        //a resize that is still running has to finish before the next starts
+        if(oldTable != null){
+            migrateBuckets(oldTable.length);
+        }
+        int newSize;
+        if(primeIndex + 1 < primes.length){
+            newSize = primes[++primeIndex];
+        }
+        else{
+            newSize = nextPrime((int) Math.min(2L * table.length + 1, MAX_TABLE_SIZE));
+        }
+        oldTable = table;
+        table = new MapEntry[newSize];
+        migrationIndex = 0;
+    }
+
+    /**
+     * Moves the chains of the next count old buckets into table. Ends the
+     * resize once every old bucket has been moved.
+     * @param count the number of old buckets to move
+     */
+    private void migrateBuckets(int count) {
+        while(count-- > 0 && migrationIndex < oldTable.length){
+            migrateBucket(migrationIndex++);
+        }
+        if(migrationIndex == oldTable.length){
+            oldTable = null;
+        }
+    }
+
+    /**
+     * Moves every entry in one old bucket to the front of its chain in table.
+     * The entries are relinked rather than copied.
+     * @param oldIndex the index of the bucket in oldTable
+     */
+    private void migrateBucket(int oldIndex) {
+        MapEntry<K, V> curr = oldTable[oldIndex];
+        oldTable[oldIndex] = null;
+        while(curr != null){
+            MapEntry<K, V> next = curr.next;
+            int index = indexFor(curr.key, table.length);
+            curr.next = table[index];
+            table[index] = curr;
+            curr = next;
+        }
+    }
+
+    /**
+     * Returns the smallest prime that is greater than or equal to n.
+     * @param n the lower bound, at least 2
+     * @return the smallest prime that is at least n
+     */
+    static int nextPrime(int n) {
+        for(int candidate = n | 1; ; candidate += 2){
+            boolean prime = true;
+            for(int divisor = 3; (long) divisor * divisor <= candidate; divisor += 2){
+                if(candidate % divisor == 0){
+                    prime = false;
+                    break;
                 }
-                prev.next = entry;
+            }
+            if(prime){
+                return candidate;
             }
         }
     }
@@ -160,7 +363,8 @@ public class MyHashMap<K extends Comparable<K>, V> implements MyMap<K, V> {
      */
     @Override
     public V remove(K key) {
-        int index = Math.abs(key.hashCode()) % primes[primeIndex];
+        pending.flush();
+        int index = prepareBucket(key);
         if(table[index] == null){
             return null;
         }
@@ -225,7 +429,7 @@ public class MyHashMap<K extends Comparable<K>, V> implements MyMap<K, V> {
      * @return the load factor of this MyHashMap
      */
     public double getLoadFactor() {
-        return (double)numEntries / primes[primeIndex];
+        return (double)numEntries / table.length;
     }
 
     /**
@@ -236,6 +440,11 @@ public class MyHashMap<K extends Comparable<K>, V> implements MyMap<K, V> {
      * @return the maximum length of a chain in this MyHashMap
      */
     public int computeMaxChainLength() {
+        int maxChainLength = oldTable != null ? computeMaxChainLength(oldTable) : 0;
+        return Math.max(maxChainLength, computeMaxChainLength(table));
+    }
+
+    private int computeMaxChainLength(MapEntry<K, V>[] table) {
         int maxChainLength = 0;
         for (MapEntry<K, V> chain : table) {
             if (chain != null) {
@@ -255,7 +464,8 @@ public class MyHashMap<K extends Comparable<K>, V> implements MyMap<K, V> {
 
     /**
      * Returns a string representation of this MyHashMap for tables with up
-     * to and including 1000 entries.
+     * to and including 1000 entries. Any resize in progress is finished first
+     * so that every entry is shown in the current table.
      * @return a string representation of this MyHashMap
      */
     public String toString() {
@@ -265,6 +475,10 @@ public class MyHashMap<K extends Comparable<K>, V> implements MyMap<K, V> {
         if (numEntries == 0) {
             return "HashMap is empty.";
         }
+        if (oldTable != null) {
+            migrateBuckets(oldTable.length);
+        }
+        pending.flush();
         int maxIndex;
         for (maxIndex = table.length - 1; maxIndex >= 0; maxIndex--) {
             if (table[maxIndex] != null) {
@@ -300,12 +514,15 @@ public class MyHashMap<K extends Comparable<K>, V> implements MyMap<K, V> {
      * @return an iterator over the Entries in this map
      */
     public Iterator<Entry<K, V>> iterator() {
+        pending.flush();
         return new MapItr();
     }
 
     private class MapItr implements Iterator<Entry<K, V>> {
         private MapEntry<K, V> current;
         private int index;
+        // Walks table first and then oldTable, if a resize is in progress.
+        private MapEntry<K, V>[] buckets = table;
 
         MapItr() {
             advanceToNextEntry();
@@ -334,10 +551,108 @@ public class MyHashMap<K extends Comparable<K>, V> implements MyMap<K, V> {
         }
 
         private void advanceToNextEntry() {
-            while (index < table.length && table[index] == null) {
+            while (index < buckets.length && buckets[index] == null) {
                 index++;
             }
-            current = index < table.length ? table[index] : null;
+            if (index == buckets.length && buckets == table && oldTable != null) {
+                buckets = oldTable;
+                index = 0;
+                advanceToNextEntry();
+                return;
+            }
+            current = index < buckets.length ? buckets[index] : null;
+        }
+    }
+
+    /**
+     * Returns a Spliterator over the Entries in this map that splits by
+     * ranges of buckets. If a resize is in progress, the buckets of oldTable
+     * are numbered after those of table, so each Entry is in exactly one
+     * range.
+     * @return a Spliterator over the Entries in this map
+     */
+    @Override
+    public Spliterator<Entry<K, V>> spliterator() {
+        pending.flush();
+        int buckets = table.length + (oldTable != null ? oldTable.length : 0);
+        return new BucketSpliterator<>(table, oldTable, 0, buckets, numEntries);
+    }
+
+    private static class BucketSpliterator<K, V>
+            implements Spliterator<Entry<K, V>> {
+        private final MapEntry<K, V>[] table, oldTable;
+        private int index;
+        private final int fence;
+        private long estimate;
+        private MapEntry<K, V> current;
+
+        BucketSpliterator(MapEntry<K, V>[] table, MapEntry<K, V>[] oldTable,
+                          int index, int fence, long estimate) {
+            this.table = table;
+            this.oldTable = oldTable;
+            this.index = index;
+            this.fence = fence;
+            this.estimate = estimate;
+        }
+
+        private MapEntry<K, V> bucket(int i) {
+            return i < table.length ? table[i] : oldTable[i - table.length];
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Entry<K, V>> action) {
+            while (current == null && index < fence) {
+                current = bucket(index++);
+            }
+            if (current == null) {
+                return false;
+            }
+            MapEntry<K, V> e = current;
+            current = current.next;
+            action.accept(e);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Entry<K, V>> action) {
+            MapEntry<K, V> e = current;
+            current = null;
+            while (true) {
+                for (; e != null; e = e.next) {
+                    action.accept(e);
+                }
+                if (index >= fence) {
+                    return;
+                }
+                e = bucket(index++);
+            }
+        }
+
+        /**
+         * Hands the first half of the remaining buckets to a new
+         * Spliterator. A chain already started stays with this one.
+         */
+        @Override
+        public Spliterator<Entry<K, V>> trySplit() {
+            int mid = (index + fence) >>> 1;
+            if (mid <= index) {
+                return null;
+            }
+            estimate >>>= 1;
+            BucketSpliterator<K, V> prefix = new BucketSpliterator<>(
+                    table, oldTable, index, mid, estimate);
+            index = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return estimate;
+        }
+
+        @Override
+        public int characteristics() {
+            return DISTINCT | NONNULL;
         }
     }
 
@@ -1,4 +1,7 @@
 import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiFunction;
 
 /**
  * Interface for a collection that maps keys to values.
@@ -39,6 +42,22 @@ public interface MyMap<K, V> {
      */
     V put(K key, V value);
 
+    /**
+     * If the specified key is not already associated with a value, associates
+     * it with the given value. Otherwise, replaces the associated value with
+     * the result of the given remapping function applied to the old value and
+     * the given value. The key is only looked up once. Unlike
+     * java.util.Map.merge, a null result is not supported: the key is not
+     * removed, so the remapping function must not return null.
+     * @param key               the key with which the resulting value is to be
+     *                          associated
+     * @param value             the value to use if there is no mapping for key
+     * @param remappingFunction the function to recompute a value if present
+     * @return the new value associated with the specified key
+     */
+    V merge(K key, V value,
+            BiFunction<? super V, ? super V, ? extends V> remappingFunction);
+
     /**
      * Removes the mapping for a key from this map if it is present.
      * @param key the key whose mapping is to be removed from the map
@@ -53,4 +72,16 @@ public interface MyMap<K, V> {
      * @return an iterator over the Entries in this map
      */
     Iterator<Entry<K, V>> iterator();
+
+    /**
+     * Returns a Spliterator over the Entries in this map, so the map can be
+     * streamed with StreamSupport.stream(map.spliterator(), true). This
+     * default wraps iterator() and can only split by copying batches of
+     * Entries out of it; maps that can split their own storage override it.
+     * @return a Spliterator over the Entries in this map
+     */
+    default Spliterator<Entry<K, V>> spliterator() {
+        return Spliterators.spliterator(iterator(), size(),
+                Spliterator.DISTINCT | Spliterator.NONNULL);
+    }
 }
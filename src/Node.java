@@ -7,6 +7,7 @@
 public class Node<K, V> extends Entry<K, V> {
     Node<K, V> left, right, parent;
     int height; // Used only in AVLTreeMap.
+    int subtreeSize; // Number of nodes in the subtree rooted at this node.
 
     /**
      * Creates a node with a key-value mapping.
@@ -15,6 +16,7 @@ public class Node<K, V> extends Entry<K, V> {
      */
     public Node(K key, V value) {
         super(key, value);
+        subtreeSize = 1;
     }
 
     /**
@@ -0,0 +1,444 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.BiFunction;
+
+/**
+ * Class for a word counter that keeps all of its data outside the Java heap,
+ * so a huge vocabulary adds nothing for the garbage collector to trace.
+ * The chars of each word are written once into an arena of direct
+ * ByteBuffers, one byte per char when every char fits in a byte and two
+ * otherwise. An open-addressed index, also in a direct ByteBuffer, holds the
+ * hash, count and arena reference of each word in a 16-byte slot. Words are
+ * compared against the bytes in the arena, so counting a word that is
+ * already in the map does not build a String.
+ * The index stops doubling at MAX_CAPACITY slots, the most one direct
+ * ByteBuffer can hold; adding a word past its load factor then throws an
+ * IllegalStateException instead of letting the probes grow without bound.
+ * The direct buffers are released when the map is garbage collected.
+ * @author Andrew Jung
+ * @version 1.0 October 18, 2026
+ */
+public class OffHeapWordMap implements MyMap<String, Integer>, WordCounter {
+    private static final int INITIAL_CAPACITY = 1 << 12; // a power of two
+    private static final int MAX_CAPACITY = 1 << 26;     // 1 GB of slots
+    private static final double MAX_LOAD_FACTOR = 0.6;
+    private static final int ARENA_CHUNK_SIZE = 1 << 22;
+    // Layout of an index slot.
+    private static final int SLOT_SIZE = 16;
+    private static final int HASH = 0, COUNT = 4, REFERENCE = 8;
+
+    private ByteBuffer index;
+    private int mask, numEntries, resizeThreshold;
+    private final List<ByteBuffer> arena = new ArrayList<>();
+    private long arenaBytes;
+    // Reused to hold the chars of String keys passed to the MyMap methods.
+    private char[] scratch = new char[32];
+
+    /**
+     * Creates an empty off-heap word map.
+     */
+    public OffHeapWordMap() {
+        allocateIndex(INITIAL_CAPACITY);
+    }
+
+    private void allocateIndex(int capacity) {
+        index = ByteBuffer.allocateDirect(capacity * SLOT_SIZE)
+                .order(ByteOrder.nativeOrder());
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * MAX_LOAD_FACTOR);
+    }
+
+    /**
+     * Returns the same hash code String.hashCode gives for the chars,
+     * scrambled so similar words do not land in neighboring slots.
+     */
+    private static int hash(char[] chars, int offset, int length) {
+        int h = 0;
+        for (int i = offset; i < offset + length; i++) {
+            h = 31 * h + chars[i];
+        }
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the slot holding the word, or -(slot + 1) for the empty slot
+     * where it would be inserted.
+     */
+    private int findSlot(char[] chars, int offset, int length, int hash) {
+        int slot = hash & mask;
+        long reference;
+        while ((reference = index.getLong(slot * SLOT_SIZE + REFERENCE)) != 0) {
+            if (index.getInt(slot * SLOT_SIZE + HASH) == hash
+                    && wordEquals(reference, chars, offset, length)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -(slot + 1);
+    }
+
+    /**
+     * Compares a word in the arena with the chars without decoding it.
+     */
+    private boolean wordEquals(long reference, char[] chars, int offset,
+                               int length) {
+        ByteBuffer chunk = arena.get((int) (reference >>> 32) - 1);
+        int position = (int) reference;
+        int header = chunk.getInt(position);
+        if (header >>> 1 != length) {
+            return false;
+        }
+        position += 4;
+        if ((header & 1) == 0) {
+            for (int i = 0; i < length; i++) {
+                if ((chunk.get(position + i) & 0xFF) != chars[offset + i]) {
+                    return false;
+                }
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                if (chunk.getChar(position + 2 * i) != chars[offset + i]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copies the word into the arena and returns its reference: the chunk
+     * number plus one in the high 32 bits, so a reference is never 0, and
+     * the position in the chunk in the low 32 bits.
+     */
+    private long storeWord(char[] chars, int offset, int length) {
+        boolean wide = false;
+        for (int i = offset; i < offset + length; i++) {
+            if (chars[i] > 0xFF) {
+                wide = true;
+                break;
+            }
+        }
+        int size = 4 + (wide ? 2 * length : length);
+        ByteBuffer chunk = arena.isEmpty() ? null : arena.get(arena.size() - 1);
+        if (chunk == null || chunk.remaining() < size) {
+            chunk = ByteBuffer.allocateDirect(Math.max(ARENA_CHUNK_SIZE, size))
+                    .order(ByteOrder.nativeOrder());
+            arena.add(chunk);
+            arenaBytes += chunk.capacity();
+        }
+        int position = chunk.position();
+        chunk.putInt((length << 1) | (wide ? 1 : 0));
+        for (int i = offset; i < offset + length; i++) {
+            if (wide) {
+                chunk.putChar(chars[i]);
+            } else {
+                chunk.put((byte) chars[i]);
+            }
+        }
+        return ((long) arena.size() << 32) | position;
+    }
+
+    private String loadWord(long reference) {
+        ByteBuffer chunk = arena.get((int) (reference >>> 32) - 1);
+        int position = (int) reference;
+        int header = chunk.getInt(position);
+        char[] chars = new char[header >>> 1];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (header & 1) == 0
+                    ? (char) (chunk.get(position + 4 + i) & 0xFF)
+                    : chunk.getChar(position + 4 + 2 * i);
+        }
+        return new String(chars);
+    }
+
+    private void insertAt(int slot, char[] chars, int offset, int length,
+                          int hash, int count) {
+        // a full index can not grow, and probing it would slow to a crawl
+        if (numEntries >= resizeThreshold && mask + 1 >= MAX_CAPACITY) {
+            throw new IllegalStateException("OffHeapWordMap is full: "
+                    + numEntries + " words fill the largest index");
+        }
+        int base = slot * SLOT_SIZE;
+        index.putInt(base + HASH, hash);
+        index.putInt(base + COUNT, count);
+        index.putLong(base + REFERENCE, storeWord(chars, offset, length));
+        if (++numEntries > resizeThreshold) {
+            resize();
+        }
+    }
+
+    /**
+     * Doubles the index. The arena is left alone, since slots only hold
+     * references to the words. At MAX_CAPACITY the index stays as it is, and
+     * insertAt refuses new words once the load factor is reached.
+     */
+    private void resize() {
+        int capacity = mask + 1;
+        if (capacity >= MAX_CAPACITY) {
+            return;
+        }
+        ByteBuffer oldIndex = index;
+        allocateIndex(capacity * 2);
+        for (int base = 0; base < capacity * SLOT_SIZE; base += SLOT_SIZE) {
+            long reference = oldIndex.getLong(base + REFERENCE);
+            if (reference != 0) {
+                int hash = oldIndex.getInt(base + HASH);
+                int slot = hash & mask;
+                while (index.getLong(slot * SLOT_SIZE + REFERENCE) != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                index.putInt(slot * SLOT_SIZE + HASH, hash);
+                index.putInt(slot * SLOT_SIZE + COUNT,
+                        oldIndex.getInt(base + COUNT));
+                index.putLong(slot * SLOT_SIZE + REFERENCE, reference);
+            }
+        }
+    }
+
+    /**
+     * Copies the chars of the key into the scratch buffer.
+     */
+    private char[] charsOf(String key) {
+        if (scratch.length < key.length()) {
+            scratch = new char[Math.max(key.length(), scratch.length * 2)];
+        }
+        key.getChars(0, key.length(), scratch, 0);
+        return scratch;
+    }
+
+    /**
+     * Adds delta to the count of the word held in the chars. Only a word seen
+     * for the first time is copied, into the arena rather than a String.
+     * @param chars  the buffer holding the word
+     * @param offset the index of the first char of the word
+     * @param length the number of chars in the word
+     * @param delta  the amount to add to the count
+     * @return the new count of the word
+     */
+    @Override
+    public int increment(char[] chars, int offset, int length, int delta) {
+        int hash = hash(chars, offset, length);
+        int slot = findSlot(chars, offset, length, hash);
+        if (slot >= 0) {
+            int position = slot * SLOT_SIZE + COUNT;
+            int count = index.getInt(position) + delta;
+            index.putInt(position, count);
+            return count;
+        }
+        insertAt(-(slot + 1), chars, offset, length, hash, delta);
+        return delta;
+    }
+
+    /**
+     * Adds delta to the count of the word, starting from 0 if the word is not
+     * in the map yet.
+     * @param word  the word whose count is to be increased
+     * @param delta the amount to add to the count
+     * @return the new count of the word
+     */
+    @Override
+    public int increment(String word, int delta) {
+        return increment(charsOf(word), 0, word.length(), delta);
+    }
+
+    /**
+     * Returns the number of words in this map.
+     * @return the number of words in this map
+     */
+    @Override
+    public int size() {
+        return numEntries;
+    }
+
+    /**
+     * Returns true if this map contains no words.
+     * @return true if this map contains no words
+     */
+    @Override
+    public boolean isEmpty() {
+        return numEntries == 0;
+    }
+
+    /**
+     * Returns the count of the word, or null if the word is not in the map.
+     * @param key the word whose count is to be returned
+     * @return the count of the word, or null if this map contains no mapping
+     *         for the word
+     */
+    @Override
+    public Integer get(String key) {
+        char[] chars = charsOf(key);
+        int slot = findSlot(chars, 0, key.length(), hash(chars, 0, key.length()));
+        return slot >= 0 ? index.getInt(slot * SLOT_SIZE + COUNT) : null;
+    }
+
+    /**
+     * Associates the specified count with the specified word in this map.
+     * @param key   the word with which the specified count is to be associated
+     * @param value the count to be associated with the word, which can not be
+     *              null
+     * @return the previous count of the word, or null if there was none
+     */
+    @Override
+    public Integer put(String key, Integer value) {
+        int count = value;
+        char[] chars = charsOf(key);
+        int hash = hash(chars, 0, key.length());
+        int slot = findSlot(chars, 0, key.length(), hash);
+        if (slot >= 0) {
+            int oldCount = index.getInt(slot * SLOT_SIZE + COUNT);
+            index.putInt(slot * SLOT_SIZE + COUNT, count);
+            return oldCount;
+        }
+        insertAt(-(slot + 1), chars, 0, key.length(), hash, count);
+        return null;
+    }
+
+    /**
+     * If the specified word is not already associated with a count, associates
+     * it with the given count. Otherwise, replaces the count with the result of
+     * the given remapping function applied to the old count and the given
+     * count.
+     * @param key               the word with which the resulting count is to
+     *                          be associated
+     * @param value             the count to use if there is no mapping for key
+     * @param remappingFunction the function to recompute a count if present
+     * @return the new count associated with the specified word
+     */
+    @Override
+    public Integer merge(String key, Integer value,
+                         BiFunction<? super Integer, ? super Integer,
+                                 ? extends Integer> remappingFunction) {
+        char[] chars = charsOf(key);
+        int hash = hash(chars, 0, key.length());
+        int slot = findSlot(chars, 0, key.length(), hash);
+        if (slot >= 0) {
+            int position = slot * SLOT_SIZE + COUNT;
+            int count = remappingFunction.apply(index.getInt(position), value);
+            index.putInt(position, count);
+            return count;
+        }
+        insertAt(-(slot + 1), chars, 0, key.length(), hash, value);
+        return value;
+    }
+
+    /**
+     * Removes the word from the index, shifting back the slots after it so no
+     * probe sequence is broken. The word's bytes stay in the arena.
+     * @param key the word whose mapping is to be removed from the map
+     * @return the previous count of the word, or null if there was none
+     */
+    @Override
+    public Integer remove(String key) {
+        char[] chars = charsOf(key);
+        int slot = findSlot(chars, 0, key.length(), hash(chars, 0, key.length()));
+        if (slot < 0) {
+            return null;
+        }
+        int oldCount = index.getInt(slot * SLOT_SIZE + COUNT);
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (index.getLong(next * SLOT_SIZE + REFERENCE) != 0) {
+            int home = index.getInt(next * SLOT_SIZE + HASH) & mask;
+            boolean homeAfterHole = hole <= next
+                    ? hole < home && home <= next
+                    : hole < home || home <= next;
+            if (!homeAfterHole) {
+                for (int i = 0; i < SLOT_SIZE; i += 4) {
+                    index.putInt(hole * SLOT_SIZE + i,
+                            index.getInt(next * SLOT_SIZE + i));
+                }
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        index.putLong(hole * SLOT_SIZE + REFERENCE, 0);
+        numEntries--;
+        return oldCount;
+    }
+
+    /**
+     * Returns the number of bytes of direct memory held by the index and the
+     * arena.
+     * @return the number of off-heap bytes used by this map
+     */
+    public long getOffHeapBytes() {
+        return index.capacity() + arenaBytes;
+    }
+
+    /**
+     * Returns an iterator over the words in this map. Each word is decoded
+     * into a new String as it is returned.
+     * @return an iterator over the Entries in this map
+     */
+    @Override
+    public Iterator<Entry<String, Integer>> iterator() {
+        return new OffHeapItr();
+    }
+
+    private class OffHeapItr implements Iterator<Entry<String, Integer>> {
+        private int slot;
+
+        OffHeapItr() {
+            advanceToNextEntry();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return slot <= mask;
+        }
+
+        @Override
+        public Entry<String, Integer> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int base = slot * SLOT_SIZE;
+            Entry<String, Integer> e = new Entry<>(
+                    loadWord(index.getLong(base + REFERENCE)),
+                    index.getInt(base + COUNT));
+            slot++;
+            advanceToNextEntry();
+            return e;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        private void advanceToNextEntry() {
+            while (slot <= mask
+                    && index.getLong(slot * SLOT_SIZE + REFERENCE) == 0) {
+                slot++;
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        OffHeapWordMap map = new OffHeapWordMap();
+        int upperLimit = 100000;
+        long expectedSum = 0;
+        for (int i = 1; i <= upperLimit; i++) {
+            map.increment(String.valueOf(i), i);
+            expectedSum += i;
+        }
+        map.increment("na\u00efve", 1);
+        map.increment("\u4e2d\u6587", 1);
+        System.out.println("Size            : " + map.size());
+        System.out.println("Off-heap bytes  : " + map.getOffHeapBytes());
+        System.out.println("Wide word       : " + map.get("\u4e2d\u6587"));
+        System.out.println("Expected sum: " + (expectedSum + 2));
+        long receivedSum = 0;
+        Iterator<Entry<String, Integer>> iter = map.iterator();
+        while (iter.hasNext()) {
+            receivedSum += iter.next().value;
+        }
+        System.out.println("Received sum: " + receivedSum);
+    }
+}
@@ -0,0 +1,50 @@
+import java.util.Arrays;
+
+/**
+ * Class for the counts a map has added to in place. Adding 1 to an Integer
+ * value boxes a new Integer once the count is over 127, so a map counting
+ * words keeps the count of each Entry it adds to in the Entry's int count
+ * field instead, and lists the Entry here. The map calls flush before any
+ * method that reads or replaces a value, which writes each listed count back
+ * to its value, so only one Integer is boxed per word between reads.
+ * @author Andrew Jung
+ * @version 1.0 October 18, 2026
+ */
+class PendingCounts {
+    private Entry<?, ?>[] entries = new Entry<?, ?>[16];
+    private int size;
+
+    /**
+     * Adds delta to the count of the Entry, whose value must be an Integer or
+     * null, and lists the Entry if it is not listed yet.
+     * @param e     the Entry whose count is to be increased
+     * @param delta the amount to add to the count
+     * @return the new count
+     */
+    int add(Entry<?, ?> e, int delta) {
+        if (!e.counted) {
+            e.count = e.value != null ? (Integer) e.value : 0;
+            e.counted = true;
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            entries[size++] = e;
+        }
+        return e.count += delta;
+    }
+
+    /**
+     * Writes the count of every listed Entry back to its value and empties
+     * the list.
+     */
+    @SuppressWarnings("unchecked")
+    void flush() {
+        for (int i = 0; i < size; i++) {
+            Entry<?, Object> e = (Entry<?, Object>) entries[i];
+            e.value = e.count;
+            e.counted = false;
+            entries[i] = null;
+        }
+        size = 0;
+    }
+}
@@ -0,0 +1,605 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiFunction;
+
+/**
+ * Class for a compressed radix trie from words to counts. Each node holds the
+ * run of chars on the edge leading into it, and the children of a node are
+ * found by their first char in an array indexed by the symbols a word can be
+ * made of (', -, a-z), so looking up a word costs O(word length) and never
+ * compares whole Strings. Chars outside that alphabet, which the tokenizer
+ * only lets through as the first char of a word, go in a short list of extra
+ * children kept sorted by char.
+ * Children are visited in char order, so the iterator returns the words in
+ * the same order as String.compareTo, and all the words sharing a prefix are
+ * one subtree, which wordsWithPrefix searches without looking at the rest of
+ * the vocabulary.
+ * @author Andrew Jung
+ * @version 1.0 October 18, 2026
+ */
+public class RadixTrieMap implements MyMap<String, Integer>, WordCounter {
+    private static final int ALPHABET_SIZE = 28;
+    private static final char[] EMPTY_LABEL = new char[0];
+    private final TrieNode root = new TrieNode(EMPTY_LABEL, 0);
+    private int numEntries;
+    private char[] scratch = new char[32];
+
+    /**
+     * A node of the trie. depth is the length of the word spelled by the path
+     * from the root to the end of this node's label.
+     */
+    private static final class TrieNode {
+        char[] label;
+        int depth;
+        TrieNode parent;
+        TrieNode[] children;
+        // children whose label starts outside the alphabet, sorted by char
+        TrieNode others, nextOther;
+        boolean isWord;
+        int count;
+
+        TrieNode(char[] label, int depth) {
+            this.label = label;
+            this.depth = depth;
+        }
+    }
+
+    /**
+     * Returns the index of the symbol in a node's children array, in char
+     * order, or -1 if the symbol is not one a word can be made of.
+     * @param symbol the first char of a child's label
+     * @return the index of the child, or -1
+     */
+    private static int slotOf(char symbol) {
+        if (symbol >= 'a' && symbol <= 'z') {
+            return symbol - 'a' + 2;
+        }
+        if (symbol == '\'') {
+            return 0;
+        }
+        return symbol == '-' ? 1 : -1;
+    }
+
+    private static TrieNode childFor(TrieNode node, char first) {
+        int slot = slotOf(first);
+        if (slot >= 0) {
+            return node.children == null ? null : node.children[slot];
+        }
+        TrieNode child = node.others;
+        while (child != null && child.label[0] < first) {
+            child = child.nextOther;
+        }
+        return child != null && child.label[0] == first ? child : null;
+    }
+
+    /**
+     * Makes child the child of node for the first char of child's label,
+     * replacing the child that was there, if any.
+     * @param node  the parent
+     * @param child the new child
+     */
+    private static void setChild(TrieNode node, TrieNode child) {
+        child.parent = node;
+        char first = child.label[0];
+        int slot = slotOf(first);
+        if (slot >= 0) {
+            if (node.children == null) {
+                node.children = new TrieNode[ALPHABET_SIZE];
+            }
+            node.children[slot] = child;
+            return;
+        }
+        TrieNode prev = null, curr = node.others;
+        while (curr != null && curr.label[0] < first) {
+            prev = curr;
+            curr = curr.nextOther;
+        }
+        if (curr != null && curr.label[0] == first) {
+            curr = curr.nextOther; // child replaces curr
+        }
+        child.nextOther = curr;
+        if (prev == null) {
+            node.others = child;
+        } else {
+            prev.nextOther = child;
+        }
+    }
+
+    private static void removeChild(TrieNode node, TrieNode child) {
+        int slot = slotOf(child.label[0]);
+        if (slot >= 0) {
+            node.children[slot] = null;
+            return;
+        }
+        if (node.others == child) {
+            node.others = child.nextOther;
+            return;
+        }
+        TrieNode prev = node.others;
+        while (prev.nextOther != child) {
+            prev = prev.nextOther;
+        }
+        prev.nextOther = child.nextOther;
+    }
+
+    /**
+     * Returns the only child of the node, null if it has none, or the node
+     * itself if it has more than one.
+     * @param node the node whose children are to be checked
+     * @return the only child, null, or node
+     */
+    private static TrieNode onlyChild(TrieNode node) {
+        TrieNode only = null;
+        if (node.children != null) {
+            for (TrieNode child : node.children) {
+                if (child != null) {
+                    if (only != null) {
+                        return node;
+                    }
+                    only = child;
+                }
+            }
+        }
+        if (node.others != null) {
+            if (only != null || node.others.nextOther != null) {
+                return node;
+            }
+            only = node.others;
+        }
+        return only;
+    }
+
+    /**
+     * Returns the node where the word in chars[0] to chars[length - 1] ends,
+     * or null if no node ends exactly there.
+     * @param chars  the buffer holding the word
+     * @param length the number of chars in the word
+     * @return the node the word ends at, or null
+     */
+    private TrieNode findNode(char[] chars, int length) {
+        TrieNode node = root;
+        int i = 0;
+        while (i < length) {
+            node = childFor(node, chars[i]);
+            if (node == null) {
+                return null;
+            }
+            char[] label = node.label;
+            if (length - i < label.length) {
+                return null;
+            }
+            for (int j = 1; j < label.length; j++) {
+                if (label[j] != chars[i + j]) {
+                    return null;
+                }
+            }
+            i += label.length;
+        }
+        return node;
+    }
+
+    /**
+     * Returns the node where the word in chars[0] to chars[length - 1] ends,
+     * adding a node for it, and splitting an edge if the word ends or leaves
+     * the trie in the middle of one, if there is none yet.
+     * @param chars  the buffer holding the word
+     * @param length the number of chars in the word
+     * @return the node the word ends at
+     */
+    private TrieNode findOrAddNode(char[] chars, int length) {
+        TrieNode node = root;
+        int i = 0;
+        while (i < length) {
+            TrieNode child = childFor(node, chars[i]);
+            if (child == null) {
+                TrieNode leaf = new TrieNode(
+                        Arrays.copyOfRange(chars, i, length), length);
+                setChild(node, leaf);
+                return leaf;
+            }
+            char[] label = child.label;
+            int j = 1;
+            while (j < label.length && i + j < length
+                    && label[j] == chars[i + j]) {
+                j++;
+            }
+            if (j < label.length) {
+                // the word leaves the edge after j chars, so split it there
+                TrieNode middle = new TrieNode(
+                        Arrays.copyOf(label, j), node.depth + j);
+                setChild(node, middle);
+                child.label = Arrays.copyOfRange(label, j, label.length);
+                setChild(middle, child);
+                if (i + j == length) {
+                    return middle;
+                }
+                TrieNode leaf = new TrieNode(
+                        Arrays.copyOfRange(chars, i + j, length), length);
+                setChild(middle, leaf);
+                return leaf;
+            }
+            node = child;
+            i += j;
+        }
+        return node;
+    }
+
+    /**
+     * Copies the chars of the key into the scratch buffer.
+     */
+    private char[] charsOf(String key) {
+        if (scratch.length < key.length()) {
+            scratch = new char[Math.max(key.length(), scratch.length * 2)];
+        }
+        key.getChars(0, key.length(), scratch, 0);
+        return scratch;
+    }
+
+    /**
+     * Returns the word that ends at the node.
+     * @param node a node of this trie
+     * @return the word spelled by the path from the root to the node
+     */
+    private static String wordOf(TrieNode node) {
+        char[] word = new char[node.depth];
+        for (TrieNode n = node; n.parent != null; n = n.parent) {
+            System.arraycopy(n.label, 0, word, n.depth - n.label.length,
+                    n.label.length);
+        }
+        return new String(word);
+    }
+
+    /**
+     * Returns the number of words in this map.
+     * @return the number of words in this map
+     */
+    @Override
+    public int size() {
+        return numEntries;
+    }
+
+    /**
+     * Returns true if this map contains no words.
+     * @return true if this map contains no words
+     */
+    @Override
+    public boolean isEmpty() {
+        return numEntries == 0;
+    }
+
+    /**
+     * Returns the count of the word, or null if the word is not in the map.
+     * @param key the word whose count is to be returned
+     * @return the count of the word, or null if this map contains no mapping
+     *         for the word
+     */
+    @Override
+    public Integer get(String key) {
+        TrieNode node = findNode(charsOf(key), key.length());
+        return node != null && node.isWord ? node.count : null;
+    }
+
+    /**
+     * Associates the specified count with the specified word in this map. If
+     * the map previously contained a mapping for the word, the old count is
+     * replaced by the specified count.
+     * @param key   the word with which the specified count is to be associated
+     * @param value the count to be associated with the specified word
+     * @return the previous count associated with the word, or null if there
+     *         was no mapping for the word
+     */
+    @Override
+    public Integer put(String key, Integer value) {
+        TrieNode node = findOrAddNode(charsOf(key), key.length());
+        Integer oldValue = node.isWord ? node.count : null;
+        if (!node.isWord) {
+            node.isWord = true;
+            numEntries++;
+        }
+        node.count = value;
+        return oldValue;
+    }
+
+    /**
+     * If the word is not already in the map, associates it with the given
+     * count. Otherwise, replaces its count with the result of the given
+     * remapping function applied to the old count and the given count.
+     * @param key               the word with which the resulting count is to
+     *                          be associated
+     * @param value             the count to use if the word is not in the map
+     * @param remappingFunction the function to recompute a count if present
+     * @return the new count of the word
+     */
+    @Override
+    public Integer merge(String key, Integer value,
+                         BiFunction<? super Integer, ? super Integer,
+                                 ? extends Integer> remappingFunction) {
+        TrieNode node = findOrAddNode(charsOf(key), key.length());
+        if (!node.isWord) {
+            node.isWord = true;
+            numEntries++;
+            node.count = value;
+            return value;
+        }
+        node.count = remappingFunction.apply(node.count, value);
+        return node.count;
+    }
+
+    /**
+     * Adds delta to the count of the word, starting from 0 if the word is not
+     * in the map yet.
+     * @param word  the word whose count is to be increased
+     * @param delta the amount to add to the count
+     * @return the new count of the word
+     */
+    @Override
+    public int increment(String word, int delta) {
+        return increment(charsOf(word), 0, word.length(), delta);
+    }
+
+    /**
+     * Adds delta to the count of the word held in the chars. The chars are
+     * matched against the edge labels directly, so counting a word that is
+     * already in the map allocates nothing.
+     * @param chars  the buffer holding the word
+     * @param offset the index of the first char of the word
+     * @param length the number of chars in the word
+     * @param delta  the amount to add to the count
+     * @return the new count of the word
+     */
+    @Override
+    public int increment(char[] chars, int offset, int length, int delta) {
+        if (offset != 0) {
+            chars = Arrays.copyOfRange(chars, offset, offset + length);
+        }
+        TrieNode node = findOrAddNode(chars, length);
+        if (!node.isWord) {
+            node.isWord = true;
+            numEntries++;
+            node.count = 0;
+        }
+        return node.count += delta;
+    }
+
+    /**
+     * Removes the word from this map if it is present. A node left with no
+     * word and a single child is joined with that child, so every node that
+     * is not a word keeps at least two children.
+     * @param key the word whose mapping is to be removed from the map
+     * @return the previous count associated with the word, or null if there
+     *         was no mapping for the word
+     */
+    @Override
+    public Integer remove(String key) {
+        TrieNode node = findNode(charsOf(key), key.length());
+        if (node == null || !node.isWord) {
+            return null;
+        }
+        int oldValue = node.count;
+        node.isWord = false;
+        node.count = 0;
+        numEntries--;
+        TrieNode parent = node.parent;
+        TrieNode only = onlyChild(node);
+        if (parent == null || only == node) {
+            return oldValue;
+        }
+        if (only == null) {
+            removeChild(parent, node);
+            only = onlyChild(parent);
+            if (parent.isWord || parent.parent == null || only == parent) {
+                return oldValue;
+            }
+            node = parent;
+        }
+        // node is not a word and has a single child, so the child takes its
+        // place under node's parent
+        only.label = concat(node.label, only.label);
+        setChild(node.parent, only);
+        return oldValue;
+    }
+
+    private static char[] concat(char[] first, char[] second) {
+        char[] joined = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, joined, first.length, second.length);
+        return joined;
+    }
+
+    /**
+     * Returns the number of nodes in the trie, not counting the root.
+     * @return the number of nodes in the trie
+     */
+    public int nodeCount() {
+        int nodes = -1;
+        TrieItr iter = new TrieItr(root);
+        while (iter.advance()) {
+            nodes++;
+        }
+        return nodes;
+    }
+
+    /**
+     * Returns the limit most common words that start with the prefix, most
+     * common first and then in alphabetical order, like
+     * CommonWordFinder.mostCommonWords. Only the subtree of words starting
+     * with the prefix is searched.
+     * @param prefix the prefix the words must start with
+     * @param limit  the number of words wanted
+     * @return a sorted array of at most limit words starting with prefix
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Entry<String, Integer>[] wordsWithPrefix(String prefix, int limit) {
+        if (limit <= 0) {
+            return new Entry[0];
+        }
+        return CommonWordFinder.mostCommonWords(prefixIterator(prefix), limit);
+    }
+
+    /**
+     * Returns an iterator over the words that start with the prefix, in
+     * alphabetical order.
+     * @param prefix the prefix the words must start with
+     * @return an iterator over the Entries of the words starting with prefix
+     */
+    public Iterator<Entry<String, Integer>> prefixIterator(String prefix) {
+        char[] chars = charsOf(prefix);
+        int length = prefix.length();
+        TrieNode node = root;
+        int i = 0;
+        while (i < length) {
+            node = childFor(node, chars[i]);
+            if (node == null) {
+                return new EntryItr(null);
+            }
+            char[] label = node.label;
+            for (int j = 1; j < label.length && i + j < length; j++) {
+                if (label[j] != chars[i + j]) {
+                    return new EntryItr(null);
+                }
+            }
+            // a prefix ending inside the label matches the whole subtree
+            i += label.length;
+        }
+        return new EntryItr(node);
+    }
+
+    /**
+     * Returns an iterator over the Entries in this map, in alphabetical order.
+     * @return an iterator over the Entries in this map
+     */
+    @Override
+    public Iterator<Entry<String, Integer>> iterator() {
+        return new EntryItr(root);
+    }
+
+    /**
+     * Pre-order walk over the nodes of a subtree, visiting the children of a
+     * node in char order.
+     */
+    private static class TrieItr {
+        private TrieNode[] stack = new TrieNode[16];
+        private int top;
+        TrieNode current;
+
+        TrieItr(TrieNode subtreeRoot) {
+            if (subtreeRoot != null) {
+                push(subtreeRoot);
+            }
+        }
+
+        /**
+         * Moves to the next node of the subtree.
+         * @return false if there are no more nodes
+         */
+        boolean advance() {
+            if (top == 0) {
+                current = null;
+                return false;
+            }
+            current = stack[--top];
+            pushChildren(current);
+            return true;
+        }
+
+        private void pushChildren(TrieNode node) {
+            // merge the children array and the list of other children, both
+            // already in char order, then flip them so the first comes off
+            // the stack first
+            int first = top;
+            TrieNode other = node.others;
+            if (node.children != null) {
+                for (TrieNode child : node.children) {
+                    if (child == null) {
+                        continue;
+                    }
+                    for (; other != null && other.label[0] < child.label[0];
+                         other = other.nextOther) {
+                        push(other);
+                    }
+                    push(child);
+                }
+            }
+            for (; other != null; other = other.nextOther) {
+                push(other);
+            }
+            reverse(first, top);
+        }
+
+        private void push(TrieNode node) {
+            if (top == stack.length) {
+                stack = Arrays.copyOf(stack, top * 2);
+            }
+            stack[top++] = node;
+        }
+
+        private void reverse(int from, int to) {
+            for (to--; from < to; from++, to--) {
+                TrieNode tmp = stack[from];
+                stack[from] = stack[to];
+                stack[to] = tmp;
+            }
+        }
+    }
+
+    private static class EntryItr implements Iterator<Entry<String, Integer>> {
+        private final TrieItr nodes;
+        private TrieNode next;
+
+        EntryItr(TrieNode subtreeRoot) {
+            nodes = new TrieItr(subtreeRoot);
+            advanceToNextWord();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Entry<String, Integer> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Entry<String, Integer> e = new Entry<>(wordOf(next), next.count);
+            advanceToNextWord();
+            return e;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        private void advanceToNextWord() {
+            next = null;
+            while (nodes.advance()) {
+                if (nodes.current.isWord) {
+                    next = nodes.current;
+                    return;
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: java RadixTrieMap <filename> <prefix> "
+                    + "[limit]");
+            System.exit(1);
+        }
+        RadixTrieMap map = new RadixTrieMap();
+        CommonWordFinder.parseAndStoreWords(new File(args[0]), map);
+        int limit = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        System.out.println("Unique words    : " + map.size());
+        System.out.println("Trie nodes      : " + map.nodeCount());
+        Entry<String, Integer>[] words = map.wordsWithPrefix(args[1], limit);
+        System.out.println("Words starting with \"" + args[1] + "\": "
+                + words.length);
+        for (Entry<String, Integer> e : words) {
+            System.out.printf("%-20s %d%n", e.key, e.value);
+        }
+    }
+}
@@ -0,0 +1,332 @@
+import java.util.function.BiFunction;
+
+/**
+ * Class that implements a splay tree which implements the MyMap interface.
+ * Every get, put, merge and remove rotates the node it reaches up to the
+ * root, so the words of a text that are seen most often stay near the top
+ * of the tree and are found with fewer comparisons than in a balanced tree,
+ * while any sequence of operations still costs O(log n) amortized each.
+ * Since a get changes the shape of the tree, a splay tree must not be read
+ * by more than one thread at a time.
+ * @author Andrew Jung
+ * @version 1.0 October 18, 2026
+ */
+public class SplayTreeMap<K extends Comparable<K>, V> extends BSTMap<K, V>
+        implements MyMap<K, V> {
+    private long comparisons, searches;
+
+    /**
+     * Creates an empty splay tree map.
+     */
+    public SplayTreeMap() { }
+
+    /**
+     * Creates a splay tree map of the given key-value pairs, inserted in the
+     * order they are received.
+     * @param elements an array of key-value pairs
+     */
+    public SplayTreeMap(Pair<K, V>[] elements) {
+        insertElements(elements);
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or null if this
+     * map contains no mapping for the key. The node of the key, or the last
+     * node visited if the key is not in the map, becomes the root.
+     * @param key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped, or null if this
+     *         map contains no mapping for the key
+     */
+    @Override
+    public V get(K key) {
+        pending.flush();
+        Node<K, V> x = iterativeSearch(key);
+        return x != null ? x.value : null;
+    }
+
+    /**
+     * Finds the node of the key and splays the last node visited to the
+     * root.
+     * @param key the key to look for
+     * @return the Node containing the key, or null if there is none
+     */
+    @Override
+    protected Node<K, V> iterativeSearch(K key) {
+        Node<K, V> p = root, last = null;
+        int steps = 0;
+        while (p != null) {
+            last = p;
+            steps++;
+            int compare = key.compareTo(p.key);
+            if (compare == 0) {
+                break;
+            }
+            p = compare < 0 ? p.left : p.right;
+        }
+        countSearch(steps);
+        splay(last);
+        return p;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map. If the
+     * map previously contained a mapping for the key, the old value is replaced
+     * by the specified value. Either way, the key's node becomes the root.
+     * @param key   the key with which the specified value is to be associated
+     * @param value the value to be associated with the specified key
+     * @return the previous value associated with key, or null if there was no
+     *         mapping for key
+     */
+    @Override
+    public V put(K key, V value) {
+        pending.flush();
+        Node<K, V> x = root, y = null;
+        int comparison = 0, steps = 0;
+        while (x != null) {
+            y = x;
+            steps++;
+            comparison = key.compareTo(x.key);
+            if (comparison == 0) {
+                countSearch(steps);
+                V oldValue = x.value;
+                x.value = value;
+                splay(x);
+                return oldValue;
+            }
+            x = comparison < 0 ? x.left : x.right;
+        }
+        countSearch(steps);
+        insertLeaf(y, comparison, key, value);
+        return null;
+    }
+
+    /**
+     * If the specified key is not already associated with a value, associates
+     * it with the given value. Otherwise, replaces the associated value with
+     * the result of the given remapping function applied to the old value and
+     * the given value. Either way, the key's node becomes the root.
+     * @param key               the key with which the resulting value is to be
+     *                          associated
+     * @param value             the value to use if there is no mapping for key
+     * @param remappingFunction the function to recompute a value if present
+     * @return the new value associated with the specified key
+     */
+    @Override
+    public V merge(K key, V value,
+                   BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        pending.flush();
+        Node<K, V> x = root, y = null;
+        int comparison = 0, steps = 0;
+        while (x != null) {
+            y = x;
+            steps++;
+            comparison = key.compareTo(x.key);
+            if (comparison == 0) {
+                countSearch(steps);
+                x.value = remappingFunction.apply(x.value, value);
+                splay(x);
+                return x.value;
+            }
+            x = comparison < 0 ? x.left : x.right;
+        }
+        countSearch(steps);
+        insertLeaf(y, comparison, key, value);
+        return value;
+    }
+
+    /**
+     * Adds delta to the count of the key the probe stands in for. Either way,
+     * the key's node becomes the root.
+     * @param probe stands in for the key whose count is to be increased
+     * @param delta the amount to add to the count
+     * @return the new count of the key
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    protected int addToCount(Comparable<String> probe, int delta) {
+        Node<K, V> x = root, y = null;
+        int comparison = 0, steps = 0;
+        while (x != null) {
+            y = x;
+            steps++;
+            comparison = probe.compareTo((String) x.key);
+            if (comparison == 0) {
+                countSearch(steps);
+                int count = pending.add(x, delta);
+                splay(x);
+                return count;
+            }
+            x = comparison < 0 ? x.left : x.right;
+        }
+        countSearch(steps);
+        insertLeaf(y, comparison, (K) probe.toString(), (V) Integer.valueOf(delta));
+        return delta;
+    }
+
+    /**
+     * Removes the mapping for a key from this map if it is present. The
+     * key's node is splayed to the root and unlinked, and the largest node of
+     * its left subtree is splayed to the top of that subtree, where it has no
+     * right child, so the right subtree can be hung there.
+     * @param key key whose mapping is to be removed from the map
+     * @return the previous value associated with key, or null if there was no
+     *         mapping for key
+     */
+    @Override
+    public V remove(K key) {
+        pending.flush();
+        Node<K, V> t = iterativeSearch(key);
+        if (t == null) {
+            return null;
+        }
+        // iterativeSearch left t at the root
+        Node<K, V> left = t.left, right = t.right;
+        size--;
+        if (left == null) {
+            root = right;
+            if (right != null) {
+                right.parent = null;
+            }
+            return t.value;
+        }
+        left.parent = null;
+        root = left;
+        Node<K, V> max = left;
+        while (max.right != null) {
+            max = max.right;
+        }
+        splay(max);
+        max.right = right;
+        if (right != null) {
+            right.parent = max;
+        }
+        max.subtreeSize = subtreeSize(max.left) + subtreeSize(right) + 1;
+        return t.value;
+    }
+
+    /**
+     * Links a new leaf under parent, on the side given by the comparison of
+     * its key with parent's key, and splays it to the root. The rotations
+     * recompute the subtree size of every node above the leaf, so they do not
+     * have to be counted up separately.
+     * @param parent     the node to hang the leaf under, or null if the tree
+     *                   is empty
+     * @param comparison the result of comparing the key with parent's key
+     * @param key        the key of the new leaf
+     * @param value      the value of the new leaf
+     */
+    @Override
+    protected void insertLeaf(Node<K, V> parent, int comparison, K key, V value) {
+        Node<K, V> leaf = new Node<>(key, value);
+        size++;
+        leaf.parent = parent;
+        if (parent == null) {
+            root = leaf;
+            return;
+        } else if (comparison < 0) {
+            parent.left = leaf;
+        } else {
+            parent.right = leaf;
+        }
+        splay(leaf);
+    }
+
+    /**
+     * Rotates x up to the root. When x and its parent are children on the
+     * same side, the parent is rotated first (zig-zig); otherwise x is rotated
+     * twice (zig-zag). Doing the zig-zig this way roughly halves the depth of
+     * every node on the path, which is what keeps the amortized cost
+     * logarithmic.
+     * @param x the node to move to the root, or null
+     */
+    private void splay(Node<K, V> x) {
+        if (x == null) {
+            return;
+        }
+        while (x.parent != null) {
+            Node<K, V> p = x.parent, g = p.parent;
+            if (g == null) {
+                rotateUp(x);
+            } else if ((x == p.left) == (p == g.left)) {
+                rotateUp(p);
+                rotateUp(x);
+            } else {
+                rotateUp(x);
+                rotateUp(x);
+            }
+        }
+    }
+
+    /**
+     * Rotates x above its parent, keeping the order of the keys, and
+     * recomputes the subtree sizes of both from their new children.
+     * @param x a node that has a parent
+     */
+    private void rotateUp(Node<K, V> x) {
+        Node<K, V> p = x.parent, g = p.parent;
+        if (x == p.left) {
+            p.left = x.right;
+            if (x.right != null) {
+                x.right.parent = p;
+            }
+            x.right = p;
+        } else {
+            p.right = x.left;
+            if (x.left != null) {
+                x.left.parent = p;
+            }
+            x.left = p;
+        }
+        p.parent = x;
+        x.parent = g;
+        if (g == null) {
+            root = x;
+        } else if (g.left == p) {
+            g.left = x;
+        } else {
+            g.right = x;
+        }
+        p.subtreeSize = subtreeSize(p.left) + subtreeSize(p.right) + 1;
+        x.subtreeSize = subtreeSize(x.left) + subtreeSize(x.right) + 1;
+    }
+
+    private void countSearch(int steps) {
+        comparisons += steps;
+        searches++;
+    }
+
+    /**
+     * Returns the average number of keys compared per get, put, merge and
+     * increment since this map was created. Unlike successfulSearchCost,
+     * which only looks at the shape of the tree now, this is what the
+     * searches actually cost while the tree was changing under them.
+     * @return the average number of comparisons per search
+     */
+    public double averageComparisons() {
+        return searches == 0 ? 0 : (double) comparisons / searches;
+    }
+
+    public static void main(String[] args) {
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Pair<String, String>[] pairs = new Pair[args.length];
+        for (int i = 0; i < args.length; i++) {
+            pairs[i] = new Pair<>(args[i], args[i]);
+        }
+        SplayTreeMap<String, String> splayTree = new SplayTreeMap<>(pairs);
+
+        System.out.println(splayTree.toAsciiDrawing());
+        System.out.println();
+        System.out.println("Height:                   " + splayTree.height());
+        System.out.println("Total nodes:              " + splayTree.size());
+        System.out.printf("Successful search cost:   %.3f\n",
+                splayTree.successfulSearchCost());
+        System.out.printf("Comparisons per search:   %.3f\n",
+                splayTree.averageComparisons());
+        if (args.length > 0) {
+            // looking the first key up again brings it back to the root
+            splayTree.get(args[0]);
+            System.out.println();
+            System.out.println(splayTree.toAsciiDrawing());
+        }
+    }
+}
@@ -0,0 +1,372 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+
+/**
+ * Class for a thread-safe hash map that uses the same separate chaining as
+ * MyHashMap. The buckets are split into stripes, and each stripe has its own
+ * lock and its own table, so threads working on different stripes never wait
+ * for each other. A stripe resizes under its own lock while writers keep
+ * using the other stripes.
+ * @author Andrew Jung
+ * @version 1.0 October 18, 2026
+ */
+public class StripedHashMap<K extends Comparable<K>, V>
+        implements ConcurrentMyMap<K, V> {
+    private static final int DEFAULT_STRIPES = 64;
+    private static final int INITIAL_STRIPE_SIZE = 101;
+    private static final double MAX_LOAD_FACTOR = 0.75;
+    private final Stripe<K, V>[] stripes;
+    private final int stripeShift;
+
+    /**
+     * Creates an empty map with 64 stripes.
+     */
+    public StripedHashMap() {
+        this(DEFAULT_STRIPES);
+    }
+
+    /**
+     * Creates an empty map with the given number of stripes. More stripes
+     * let more threads write at once.
+     * @param stripeCount the number of stripes, rounded up to a power of two
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public StripedHashMap(int stripeCount) {
+        int bits = 32 - Integer.numberOfLeadingZeros(Math.max(stripeCount, 2) - 1);
+        stripes = new Stripe[1 << bits];
+        stripeShift = 32 - bits;
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe<>();
+        }
+    }
+
+    /**
+     * Returns the stripe of the key. The hash code is scrambled and its high
+     * bits pick the stripe, so the low bits that pick the bucket inside the
+     * stripe stay independent of the stripe.
+     * @param key the key to find the stripe of
+     * @return the stripe that holds the key
+     */
+    private Stripe<K, V> stripeFor(K key) {
+        return stripes[(key.hashCode() * 0x9E3779B9) >>> stripeShift];
+    }
+
+    /**
+     * Returns the number of stripes in this map.
+     * @return the number of stripes in this map
+     */
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map. The stripes are
+     * counted one at a time, so the result may be stale if other threads are
+     * writing.
+     * @return the number of key-value mappings in this map
+     */
+    @Override
+    public int size() {
+        int size = 0;
+        for (Stripe<K, V> stripe : stripes) {
+            size += stripe.numEntries;
+        }
+        return size;
+    }
+
+    /**
+     * Returns true if this map contains no key-value mappings.
+     * @return true if this map contains no key-value mappings
+     */
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or null if this
+     * map contains no mapping for the key.
+     * @param  key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped, or null if this
+     *         map contains no mapping for the key
+     */
+    @Override
+    public V get(K key) {
+        Stripe<K, V> stripe = stripeFor(key);
+        stripe.lock.lock();
+        try {
+            MapEntry<K, V> e = stripe.find(key);
+            return e != null ? e.value : null;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map. If the
+     * map previously contained a mapping for the key, the old value is replaced
+     * by the specified value.
+     * @param key   the key with which the specified value is to be associated
+     * @param value the value to be associated with the specified key
+     * @return the previous value associated with key, or null if there was no
+     *         mapping for key
+     */
+    @Override
+    public V put(K key, V value) {
+        Stripe<K, V> stripe = stripeFor(key);
+        stripe.lock.lock();
+        try {
+            MapEntry<K, V> e = stripe.find(key);
+            if (e != null) {
+                V oldValue = e.value;
+                e.value = value;
+                return oldValue;
+            }
+            stripe.insert(key, value);
+            return null;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * If the specified key is not already associated with a value, associates
+     * it with the given value. Otherwise, replaces the associated value with
+     * the result of the given remapping function applied to the old value and
+     * the given value. The whole update happens under the stripe's lock, so
+     * concurrent merges of the same key are never lost.
+     * @param key               the key with which the resulting value is to be
+     *                          associated
+     * @param value             the value to use if there is no mapping for key
+     * @param remappingFunction the function to recompute a value if present
+     * @return the new value associated with the specified key
+     */
+    @Override
+    public V merge(K key, V value,
+                   BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        Stripe<K, V> stripe = stripeFor(key);
+        stripe.lock.lock();
+        try {
+            MapEntry<K, V> e = stripe.find(key);
+            if (e != null) {
+                e.value = remappingFunction.apply(e.value, value);
+                return e.value;
+            }
+            stripe.insert(key, value);
+            return value;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the mapping for a key from this map if it is present.
+     * @param key the key whose mapping is to be removed from the map
+     * @return the previous value associated with key, or null if there was no
+     *         mapping for key
+     */
+    @Override
+    public V remove(K key) {
+        Stripe<K, V> stripe = stripeFor(key);
+        stripe.lock.lock();
+        try {
+            int index = stripe.indexFor(key);
+            MapEntry<K, V> curr = stripe.table[index], prev = null;
+            while (curr != null) {
+                if (key.compareTo(curr.key) == 0) {
+                    if (prev == null) {
+                        stripe.table[index] = curr.next;
+                    } else {
+                        prev.next = curr.next;
+                    }
+                    stripe.numEntries--;
+                    return curr.value;
+                }
+                prev = curr;
+                curr = curr.next;
+            }
+            return null;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the maximum length of a chain over all stripes.
+     * @return the maximum length of a chain in this map
+     */
+    public int computeMaxChainLength() {
+        int maxChainLength = 0;
+        for (Stripe<K, V> stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                for (MapEntry<K, V> chain : stripe.table) {
+                    int currentChainLength = 0;
+                    for (; chain != null; chain = chain.next) {
+                        currentChainLength++;
+                    }
+                    maxChainLength = Math.max(maxChainLength, currentChainLength);
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return maxChainLength;
+    }
+
+    /**
+     * Returns a weakly consistent iterator over the Entries in this map. Each
+     * stripe is copied under its lock when the iterator reaches it, so every
+     * Entry returned was in the map at some point during the iteration, no
+     * key is returned twice, and writers are never blocked for longer than it
+     * takes to copy one stripe. Changes made after a stripe was copied are
+     * not seen.
+     * @return an iterator over the Entries in this map
+     */
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+        return new StripedItr();
+    }
+
+    private class StripedItr implements Iterator<Entry<K, V>> {
+        private Entry<K, V>[] snapshot;
+        private int stripeIndex, index;
+
+        StripedItr() {
+            snapshot = stripes[0].snapshot();
+            advanceToNextEntry();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < snapshot.length;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Entry<K, V> e = snapshot[index++];
+            advanceToNextEntry();
+            return e;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        private void advanceToNextEntry() {
+            while (index == snapshot.length && stripeIndex + 1 < stripes.length) {
+                snapshot = stripes[++stripeIndex].snapshot();
+                index = 0;
+            }
+        }
+    }
+
+    /**
+     * One lock and the chained hash table it protects. Every field is only
+     * read or written while holding the lock, except numEntries, which size
+     * reads without it.
+     */
+    private static class Stripe<K extends Comparable<K>, V> {
+        final ReentrantLock lock = new ReentrantLock();
+        MapEntry<K, V>[] table;
+        volatile int numEntries;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Stripe() {
+            table = new MapEntry[INITIAL_STRIPE_SIZE];
+        }
+
+        int indexFor(K key) {
+            return Math.abs(key.hashCode() % table.length);
+        }
+
+        MapEntry<K, V> find(K key) {
+            MapEntry<K, V> curr = table[indexFor(key)];
+            while (curr != null && key.compareTo(curr.key) != 0) {
+                curr = curr.next;
+            }
+            return curr;
+        }
+
+        void insert(K key, V value) {
+            int index = indexFor(key);
+            MapEntry<K, V> n = new MapEntry<>(key, value);
+            n.next = table[index];
+            table[index] = n;
+            numEntries++;
+            if ((double) numEntries / table.length > MAX_LOAD_FACTOR) {
+                rehash();
+            }
+        }
+
+        /**
+         * Doubles the table, relinking the entries instead of copying them.
+         * Only this stripe's writers wait while it runs.
+         */
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private void rehash() {
+            MapEntry<K, V>[] oldTable = table;
+            table = new MapEntry[MyHashMap.nextPrime(2 * oldTable.length + 1)];
+            for (MapEntry<K, V> curr : oldTable) {
+                while (curr != null) {
+                    MapEntry<K, V> next = curr.next;
+                    int index = indexFor(curr.key);
+                    curr.next = table[index];
+                    table[index] = curr;
+                    curr = next;
+                }
+            }
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Entry<K, V>[] snapshot() {
+            lock.lock();
+            try {
+                Entry<K, V>[] entries = new Entry[numEntries];
+                int i = 0;
+                for (MapEntry<K, V> curr : table) {
+                    for (; curr != null; curr = curr.next) {
+                        entries[i++] = new Entry<>(curr.key, curr.value);
+                    }
+                }
+                return entries;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        StripedHashMap<String, Integer> map = new StripedHashMap<>();
+        int threadCount = 8, words = 10000, rounds = 20;
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            threads[t] = new Thread(() -> {
+                for (int r = 0; r < rounds; r++) {
+                    for (int i = 0; i < words; i++) {
+                        map.merge(String.valueOf(i), 1, Integer::sum);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long receivedSum = 0;
+        Iterator<Entry<String, Integer>> iter = map.iterator();
+        while (iter.hasNext()) {
+            receivedSum += iter.next().value;
+        }
+        System.out.println("Size            : " + map.size());
+        System.out.println("Max chain length: " + map.computeMaxChainLength());
+        System.out.println("Expected sum    : " + (long) threadCount * words * rounds);
+        System.out.println("Received sum    : " + receivedSum);
+    }
+}
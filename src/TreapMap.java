@@ -0,0 +1,258 @@
+import java.util.function.BiFunction;
+
+/**
+ * Class that implements a treap which implements the MyMap interface. Every
+ * node gets a random priority when it is created, and the tree is kept in
+ * heap order on the priorities as well as in search order on the keys, so
+ * its shape is that of a tree built from the keys inserted in a random order.
+ * The expected depth of every node is O(log n) whatever order the keys
+ * really arrive in, so a sorted word list does not turn it into a linked
+ * list the way it does a BSTMap.
+ * Removal is inherited from BSTMap and needs no rotations: a node with two
+ * children takes its successor's key and value but keeps its own priority,
+ * and the node unlinked in its place has at most one child, which moves up
+ * under a parent of larger priority, so the heap order still holds.
+ * @author Andrew Jung
+ * @version 1.0 October 18, 2026
+ */
+public class TreapMap<K extends Comparable<K>, V> extends BSTMap<K, V>
+        implements MyMap<K, V> {
+    private int seed;
+
+    /**
+     * A node with the random priority that decides its place in the heap
+     * order. No node has a larger priority than its parent.
+     */
+    private static final class TreapNode<K, V> extends Node<K, V> {
+        final int priority;
+
+        TreapNode(K key, V value, int priority) {
+            super(key, value);
+            this.priority = priority;
+        }
+    }
+
+    /**
+     * Creates an empty treap map.
+     */
+    public TreapMap() {
+        this(System.nanoTime());
+    }
+
+    /**
+     * Creates an empty treap map whose priorities are drawn from the given
+     * seed, so the same keys inserted in the same order give the same tree.
+     * @param seed the seed of the priorities
+     */
+    public TreapMap(long seed) {
+        // xorshift never leaves 0, so make sure not to start there
+        this.seed = (int) (seed ^ (seed >>> 32)) | 1;
+    }
+
+    /**
+     * Creates a treap map of the given key-value pairs, inserted in the
+     * order they are received.
+     * @param elements an array of key-value pairs
+     */
+    public TreapMap(Pair<K, V>[] elements) {
+        this();
+        insertElements(elements);
+    }
+
+    /**
+     * Constructs a balanced treap from pairs sorted by key, as BSTMap does
+     * for mergeAll. Each level gets a priority one below the level above it,
+     * which keeps the heap order; those priorities are near the top of the
+     * int range, so keys inserted later hang below the balanced part as a
+     * treap of their own.
+     * @param pairs an array of <K, V> pairs sorted by key
+     * @param low   the low index of the array of elements
+     * @param high  the high index of the array of elements
+     * @return      the root of the balanced tree of pairs
+     */
+    @Override
+    protected Node<K, V> createBST(Pair<K, V>[] pairs, int low, int high) {
+        return createTreap(pairs, low, high, Integer.MAX_VALUE);
+    }
+
+    private Node<K, V> createTreap(Pair<K, V>[] pairs, int low, int high,
+                                   int priority) {
+        if (low > high) {
+            return null;
+        }
+        int mid = low + (high - low) / 2;
+        Node<K, V> parent =
+                new TreapNode<>(pairs[mid].key, pairs[mid].value, priority);
+        parent.left = createTreap(pairs, low, mid - 1, priority - 1);
+        if (parent.left != null) {
+            parent.left.parent = parent;
+        }
+        parent.right = createTreap(pairs, mid + 1, high, priority - 1);
+        if (parent.right != null) {
+            parent.right.parent = parent;
+        }
+        parent.subtreeSize = high - low + 1;
+        return parent;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map. If the
+     * map previously contained a mapping for the key, the old value is replaced
+     * by the specified value.
+     * @param key   the key with which the specified value is to be associated
+     * @param value the value to be associated with the specified key
+     * @return the previous value associated with key, or null if there was no
+     *         mapping for key
+     */
+    @Override
+    public V put(K key, V value) {
+        pending.flush();
+        Node<K, V> x = root, y = null;
+        int comparison = 0;
+        while (x != null) {
+            y = x;
+            comparison = key.compareTo(x.key);
+            if (comparison == 0) {
+                V oldValue = x.value;
+                x.value = value;
+                return oldValue;
+            }
+            x = comparison < 0 ? x.left : x.right;
+        }
+        insertLeaf(y, comparison, key, value);
+        return null;
+    }
+
+    /**
+     * If the specified key is not already associated with a value, associates
+     * it with the given value. Otherwise, replaces the associated value with
+     * the result of the given remapping function applied to the old value and
+     * the given value.
+     * @param key               the key with which the resulting value is to be
+     *                          associated
+     * @param value             the value to use if there is no mapping for key
+     * @param remappingFunction the function to recompute a value if present
+     * @return the new value associated with the specified key
+     */
+    @Override
+    public V merge(K key, V value,
+                   BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        pending.flush();
+        Node<K, V> x = root, y = null;
+        int comparison = 0;
+        while (x != null) {
+            y = x;
+            comparison = key.compareTo(x.key);
+            if (comparison == 0) {
+                x.value = remappingFunction.apply(x.value, value);
+                return x.value;
+            }
+            x = comparison < 0 ? x.left : x.right;
+        }
+        insertLeaf(y, comparison, key, value);
+        return value;
+    }
+
+    /**
+     * Links a new leaf with a random priority under parent, on the side given
+     * by the comparison of its key with parent's key, and rotates it up while
+     * its priority is larger than its parent's.
+     * @param parent     the node to hang the leaf under, or null if the tree
+     *                   is empty
+     * @param comparison the result of comparing the key with parent's key
+     * @param key        the key of the new leaf
+     * @param value      the value of the new leaf
+     */
+    @Override
+    protected void insertLeaf(Node<K, V> parent, int comparison, K key, V value) {
+        TreapNode<K, V> leaf = new TreapNode<>(key, value, nextPriority());
+        size++;
+        leaf.parent = parent;
+        if (parent == null) {
+            root = leaf;
+            return;
+        } else if (comparison < 0) {
+            parent.left = leaf;
+        } else {
+            parent.right = leaf;
+        }
+        addToSubtreeSizes(parent, 1);
+        while (leaf.parent != null
+                && ((TreapNode<K, V>) leaf.parent).priority < leaf.priority) {
+            rotateUp(leaf);
+        }
+    }
+
+    /**
+     * Rotates x above its parent, keeping the order of the keys, and
+     * recomputes the subtree sizes of both from their new children.
+     * @param x a node that has a parent
+     */
+    private void rotateUp(Node<K, V> x) {
+        Node<K, V> p = x.parent, g = p.parent;
+        if (x == p.left) {
+            p.left = x.right;
+            if (x.right != null) {
+                x.right.parent = p;
+            }
+            x.right = p;
+        } else {
+            p.right = x.left;
+            if (x.left != null) {
+                x.left.parent = p;
+            }
+            x.left = p;
+        }
+        p.parent = x;
+        x.parent = g;
+        if (g == null) {
+            root = x;
+        } else if (g.left == p) {
+            g.left = x;
+        } else {
+            g.right = x;
+        }
+        p.subtreeSize = subtreeSize(p.left) + subtreeSize(p.right) + 1;
+        x.subtreeSize = subtreeSize(x.left) + subtreeSize(x.right) + 1;
+    }
+
+    /**
+     * Returns the next priority from a xorshift generator, which is cheaper
+     * than java.util.Random and random enough to balance a tree.
+     * @return a pseudorandom int
+     */
+    private int nextPriority() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return seed;
+    }
+
+    /**
+     * Returns the height a treap of this size is expected to stay within,
+     * so an iterator's stack rarely has to grow.
+     * @return the initial capacity of an iterator's stack
+     */
+    @Override
+    protected int iteratorStackSize() {
+        return 3 * (32 - Integer.numberOfLeadingZeros(size)) + 1;
+    }
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        // keys in sorted order are the worst case for an unbalanced tree
+        TreapMap<Integer, Integer> treap = new TreapMap<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            treap.put(i, i);
+        }
+        System.out.printf("Inserted %d sorted keys in %.1f ms%n", n,
+                (System.nanoTime() - start) / 1e6);
+        System.out.println("Height:                   " + treap.height());
+        System.out.println("Diameter:                 " + treap.diameter());
+        System.out.printf("Successful search cost:   %.3f\n",
+                treap.successfulSearchCost());
+        System.out.printf("Unsuccessful search cost: %.3f\n",
+                treap.unsuccessfulSearchCost());
+    }
+}
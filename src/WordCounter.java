@@ -0,0 +1,32 @@
+/**
+ * Interface for a map from words to counts that can add to a count without
+ * boxing it into an Integer.
+ * @author Andrew Jung
+ * @version 1.0 October 18, 2026
+ */
+public interface WordCounter {
+
+    /**
+     * Adds delta to the count of the word, starting from 0 if the word is not
+     * in the map yet.
+     * @param word  the word whose count is to be increased
+     * @param delta the amount to add to the count
+     * @return the new count of the word
+     */
+    int increment(String word, int delta);
+
+    /**
+     * Adds delta to the count of the word held in chars[offset] to
+     * chars[offset + length - 1]. Maps that can compare a key against the
+     * chars directly override this to skip making a String for words they
+     * already hold.
+     * @param chars  the buffer holding the word
+     * @param offset the index of the first char of the word
+     * @param length the number of chars in the word
+     * @param delta  the amount to add to the count
+     * @return the new count of the word
+     */
+    default int increment(char[] chars, int offset, int length, int delta) {
+        return increment(new String(chars, offset, length), delta);
+    }
+}
@@ -0,0 +1,461 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Class for an open-addressing hash map from words to counts. Keys, their
+ * hash codes and counts are kept in three parallel arrays and collisions are
+ * resolved with linear probing, so there is no entry object per word and no
+ * boxed Integer per count. Incrementing a count never allocates.
+ * @author Andrew Jung
+ * @version 1.0 October 18, 2026
+ */
+public class WordCounterMap implements MyMap<String, Integer>, WordCounter {
+    private static final int INITIAL_CAPACITY = 128; // must be a power of two
+    private static final double MAX_LOAD_FACTOR = 0.6;
+    private String[] keys;
+    private int[] hashes;
+    private int[] counts;
+    private int mask, numEntries, resizeThreshold;
+
+    /**
+     * Creates an empty counter map.
+     */
+    public WordCounterMap() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        keys = new String[capacity];
+        hashes = new int[capacity];
+        counts = new int[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * MAX_LOAD_FACTOR);
+    }
+
+    /**
+     * Scrambles the hash code of the key. String hash codes of similar words
+     * are close together, which would make long runs with linear probing, so
+     * the code is multiplied by a large odd constant and the high bits are
+     * folded into the low bits that pick the slot.
+     * @param key the key to hash
+     * @return the hash of the key
+     */
+    private static int hash(String key) {
+        return spread(key.hashCode());
+    }
+
+    private static int spread(int hashCode) {
+        int h = hashCode * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the slot holding the key, or the empty slot where the key would
+     * be inserted, encoded as -(slot + 1).
+     * @param key  the key to look for
+     * @param hash the hash of the key
+     * @return the slot of the key, or -(empty slot + 1) if it is not found
+     */
+    private int findSlot(String key, int hash) {
+        int slot = hash & mask;
+        String k;
+        while ((k = keys[slot]) != null) {
+            if (hashes[slot] == hash && (k == key || k.equals(key))) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -(slot + 1);
+    }
+
+    private void insertAt(int slot, String key, int hash, int count) {
+        keys[slot] = key;
+        hashes[slot] = hash;
+        counts[slot] = count;
+        if (++numEntries > resizeThreshold) {
+            resize();
+        }
+    }
+
+    private void resize() {
+        String[] oldKeys = keys;
+        int[] oldHashes = hashes, oldCounts = counts;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                // every key is distinct, so only the empty slot is needed
+                int slot = oldHashes[i] & mask;
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                hashes[slot] = oldHashes[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    /**
+     * Returns the number of slots in this map.
+     * @return the number of slots in this map
+     */
+    public int getTableSize() {
+        return keys.length;
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     * @return the number of key-value mappings in this map
+     */
+    @Override
+    public int size() {
+        return numEntries;
+    }
+
+    /**
+     * Returns true if this map contains no key-value mappings.
+     * @return true if this map contains no key-value mappings
+     */
+    @Override
+    public boolean isEmpty() {
+        return numEntries == 0;
+    }
+
+    /**
+     * Returns the count to which the specified word is mapped, or null if this
+     * map contains no mapping for the word.
+     * @param  key the word whose count is to be returned
+     * @return the count of the word, or null if this map contains no mapping
+     *         for the word
+     */
+    @Override
+    public Integer get(String key) {
+        int slot = findSlot(key, hash(key));
+        return slot >= 0 ? counts[slot] : null;
+    }
+
+    /**
+     * Adds delta to the count of the word, starting from 0 if the word is not
+     * in the map yet. Takes a single probe sequence and allocates nothing
+     * unless the table has to grow.
+     * @param word  the word whose count is to be increased
+     * @param delta the amount to add to the count
+     * @return the new count of the word
+     */
+    @Override
+    public int increment(String word, int delta) {
+        int hash = hash(word);
+        int slot = findSlot(word, hash);
+        if (slot >= 0) {
+            return counts[slot] += delta;
+        }
+        insertAt(-(slot + 1), word, hash, delta);
+        return delta;
+    }
+
+    /**
+     * Adds delta to the count of the word held in the chars. The chars are
+     * compared with the stored keys directly, so a String is only made the
+     * first time the word is seen.
+     * @param chars  the buffer holding the word
+     * @param offset the index of the first char of the word
+     * @param length the number of chars in the word
+     * @param delta  the amount to add to the count
+     * @return the new count of the word
+     */
+    @Override
+    public int increment(char[] chars, int offset, int length, int delta) {
+        int hash = spread(CharSlice.hashCode(chars, offset, length));
+        int slot = hash & mask;
+        String k;
+        while ((k = keys[slot]) != null) {
+            if (hashes[slot] == hash
+                    && CharSlice.contentEquals(k, chars, offset, length)) {
+                return counts[slot] += delta;
+            }
+            slot = (slot + 1) & mask;
+        }
+        insertAt(slot, new String(chars, offset, length), hash, delta);
+        return delta;
+    }
+
+    /**
+     * Associates the specified count with the specified word in this map. If
+     * the map previously contained a mapping for the word, the old count is
+     * replaced by the specified count.
+     * @param key   the word with which the specified count is to be associated
+     * @param value the count to be associated with the specified word, which
+     *              can not be null
+     * @return the previous count associated with the word, or null if there
+     *         was no mapping for the word
+     */
+    @Override
+    public Integer put(String key, Integer value) {
+        int count = value; // counts are primitive, so null is rejected here
+        int hash = hash(key);
+        int slot = findSlot(key, hash);
+        if (slot >= 0) {
+            int oldCount = counts[slot];
+            counts[slot] = count;
+            return oldCount;
+        }
+        insertAt(-(slot + 1), key, hash, count);
+        return null;
+    }
+
+    /**
+     * If the specified word is not already associated with a count, associates
+     * it with the given count. Otherwise, replaces the count with the result of
+     * the given remapping function applied to the old count and the given
+     * count. Use increment to avoid boxing the counts.
+     * @param key               the word with which the resulting count is to
+     *                          be associated
+     * @param value             the count to use if there is no mapping for key
+     * @param remappingFunction the function to recompute a count if present
+     * @return the new count associated with the specified word
+     */
+    @Override
+    public Integer merge(String key, Integer value,
+                         BiFunction<? super Integer, ? super Integer,
+                                 ? extends Integer> remappingFunction) {
+        int hash = hash(key);
+        int slot = findSlot(key, hash);
+        if (slot >= 0) {
+            counts[slot] = remappingFunction.apply(counts[slot], value);
+            return counts[slot];
+        }
+        insertAt(-(slot + 1), key, hash, value);
+        return value;
+    }
+
+    /**
+     * Removes the mapping for a word from this map if it is present. The
+     * entries after it in the same run are shifted back so that no probe
+     * sequence is broken, which avoids the need for tombstones.
+     * @param key the word whose mapping is to be removed from the map
+     * @return the previous count associated with the word, or null if there
+     *         was no mapping for the word
+     */
+    @Override
+    public Integer remove(String key) {
+        int slot = findSlot(key, hash(key));
+        if (slot < 0) {
+            return null;
+        }
+        int oldCount = counts[slot];
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (keys[next] != null) {
+            int home = hashes[next] & mask;
+            // the entry can fill the hole unless its home slot lies
+            // cyclically between the hole and the entry
+            boolean homeAfterHole = hole <= next
+                    ? hole < home && home <= next
+                    : hole < home || home <= next;
+            if (!homeAfterHole) {
+                keys[hole] = keys[next];
+                hashes[hole] = hashes[next];
+                counts[hole] = counts[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = null;
+        numEntries--;
+        return oldCount;
+    }
+
+    /**
+     * Returns the load factor of this map, defined as the number of entries /
+     * table size.
+     * @return the load factor of this map
+     */
+    public double getLoadFactor() {
+        return (double) numEntries / keys.length;
+    }
+
+    /**
+     * Returns the length of the longest run of occupied slots. A long run
+     * means that lookups near it need many probes.
+     * @return the length of the longest run of occupied slots
+     */
+    public int computeMaxRunLength() {
+        int maxRunLength = 0, runLength = 0;
+        // go around twice so a run that wraps past the end is counted whole
+        for (int i = 0; i < keys.length * 2 && runLength < keys.length; i++) {
+            if (keys[i & mask] != null) {
+                runLength++;
+                maxRunLength = Math.max(maxRunLength, runLength);
+            } else {
+                runLength = 0;
+            }
+        }
+        return maxRunLength;
+    }
+
+    /**
+     * Returns a string representation of this map for tables with up to and
+     * including 1000 entries.
+     * @return a string representation of this map
+     */
+    public String toString() {
+        if (numEntries > 1000) {
+            return "WordCounterMap too large to represent as a string.";
+        }
+        StringBuilder builder = new StringBuilder("[");
+        Iterator<Entry<String, Integer>> itr = iterator();
+        while (itr.hasNext()) {
+            builder.append(itr.next());
+            if (itr.hasNext()) {
+                builder.append(", ");
+            }
+        }
+        return builder.append("]").toString();
+    }
+
+    /**
+     * Returns an iterator over the Entries in this map in the order
+     * in which they appear. Each Entry is a copy of the slot it came from.
+     * @return an iterator over the Entries in this map
+     */
+    @Override
+    public Iterator<Entry<String, Integer>> iterator() {
+        return new CounterItr();
+    }
+
+    private class CounterItr implements Iterator<Entry<String, Integer>> {
+        private int index;
+
+        CounterItr() {
+            advanceToNextEntry();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < keys.length;
+        }
+
+        @Override
+        public Entry<String, Integer> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Entry<String, Integer> e = new Entry<>(keys[index], counts[index]);
+            index++;
+            advanceToNextEntry();
+            return e;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        private void advanceToNextEntry() {
+            while (index < keys.length && keys[index] == null) {
+                index++;
+            }
+        }
+    }
+
+    /**
+     * Returns a Spliterator over the Entries in this map that splits by
+     * ranges of slots.
+     * @return a Spliterator over the Entries in this map
+     */
+    @Override
+    public Spliterator<Entry<String, Integer>> spliterator() {
+        return new SlotSpliterator(0, keys.length, numEntries);
+    }
+
+    private class SlotSpliterator implements Spliterator<Entry<String, Integer>> {
+        private int index;
+        private final int fence;
+        private long estimate;
+
+        SlotSpliterator(int index, int fence, long estimate) {
+            this.index = index;
+            this.fence = fence;
+            this.estimate = estimate;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Entry<String, Integer>> action) {
+            while (index < fence) {
+                int slot = index++;
+                if (keys[slot] != null) {
+                    action.accept(new Entry<>(keys[slot], counts[slot]));
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Entry<String, Integer>> action) {
+            for (; index < fence; index++) {
+                if (keys[index] != null) {
+                    action.accept(new Entry<>(keys[index], counts[index]));
+                }
+            }
+        }
+
+        @Override
+        public Spliterator<Entry<String, Integer>> trySplit() {
+            int mid = (index + fence) >>> 1;
+            if (mid <= index) {
+                return null;
+            }
+            estimate >>>= 1;
+            SlotSpliterator prefix = new SlotSpliterator(index, mid, estimate);
+            index = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return estimate;
+        }
+
+        @Override
+        public int characteristics() {
+            return DISTINCT | NONNULL;
+        }
+    }
+
+    public static void main(String[] args) {
+        WordCounterMap map = new WordCounterMap();
+        int upperLimit = 1000;
+        int expectedSum = 0;
+        for (int i = 1; i <= upperLimit; i++) {
+            map.increment(String.valueOf(i), i);
+            expectedSum += i;
+        }
+        System.out.println("Size            : " + map.size());
+        System.out.println("Table size      : " + map.getTableSize());
+        System.out.println("Load factor     : " + map.getLoadFactor());
+        System.out.println("Max run length  : " + map.computeMaxRunLength());
+        System.out.println();
+        System.out.println("Expected sum: " + expectedSum);
+
+        int receivedSum = 0;
+        Iterator<Entry<String, Integer>> iter = map.iterator();
+        while (iter.hasNext()) {
+            receivedSum += iter.next().value;
+        }
+        System.out.println("Received sum: " + receivedSum);
+
+        receivedSum = 0;
+        for (int i = 1; i <= upperLimit; i += 2) {
+            receivedSum += map.remove(String.valueOf(i));
+        }
+        for (int i = 2; i <= upperLimit; i += 2) {
+            receivedSum += map.get(String.valueOf(i));
+        }
+        System.out.println("Received sum: " + receivedSum);
+        System.out.println("Size            : " + map.size());
+    }
+}
@@ -0,0 +1,552 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.StreamSupport;
+
+/**
+ * Class for timing the different ways CommonWordFinder can count the words in
+ * a file. Each configuration is run a few times after a warm-up run and the
+ * best time is reported, since the first runs include JIT compilation.
+ * @author Andrew Jung
+ * @version 1.0 October 18, 2026
+ */
+public class WordFinderBenchmark {
+    private static final int RUNS = 3;
+
+    /**
+     * Returns the best time in milliseconds out of RUNS runs of parsing the
+     * file into a new map of the given data structure with the given number
+     * of threads.
+     * @param file          the text file to parse
+     * @param dataStructure the data structure to count the words in
+     * @param threads       the number of threads to parse with
+     * @return the best time in milliseconds
+     * @throws IOException if there is a problem reading the file
+     */
+    static double timeParallelParse(File file, String dataStructure,
+                                    int threads) throws IOException {
+        double best = Double.MAX_VALUE;
+        for (int run = 0; run < RUNS; run++) {
+            MyMap<String, Integer> map =
+                    CommonWordFinder.createMap(dataStructure);
+            long start = System.nanoTime();
+            CommonWordFinder.parseAndStoreWords(file, map,
+                    () -> CommonWordFinder.createMap(dataStructure), threads);
+            best = Math.min(best, (System.nanoTime() - start) / 1e6);
+        }
+        return best;
+    }
+
+    /**
+     * Prints how parsing scales from one thread up to maxThreads threads,
+     * doubling the thread count each step.
+     * @param file          the text file to parse
+     * @param dataStructure the data structure to count the words in
+     * @param maxThreads    the largest number of threads to try
+     * @throws IOException if there is a problem reading the file
+     */
+    static void printThreadScaling(File file, String dataStructure,
+                                   int maxThreads) throws IOException {
+        double megabytes = file.length() / (1024.0 * 1024.0);
+        timeParallelParse(file, dataStructure, maxThreads); // warm-up
+        double single = 0;
+        System.out.println("Threads  Time (ms)  MB/s      Speedup");
+        for (int threads = 1; threads <= maxThreads;
+             threads = threads == maxThreads ? threads + 1
+                     : Math.min(threads * 2, maxThreads)) {
+            double millis = timeParallelParse(file, dataStructure, threads);
+            if (threads == 1) {
+                single = millis;
+            }
+            System.out.printf("%-8d %-10.1f %-9.1f %.2fx%n", threads, millis,
+                    megabytes / (millis / 1000), single / millis);
+        }
+    }
+
+    /**
+     * Returns the number of bytes in use on the heap after asking the garbage
+     * collector to run, so that only reachable objects are counted.
+     * @return the number of bytes of reachable objects on the heap
+     */
+    static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Prints the time per token and the heap footprint per distinct word for
+     * each of the given data structures on the same file.
+     * @param file           the text file to parse
+     * @param dataStructures the data structures to compare
+     * @throws IOException if there is a problem reading the file
+     */
+    static void printStructureComparison(File file, String[] dataStructures)
+            throws IOException {
+        System.out.println("Structure  Unique     Tokens       ns/token  "
+                + "Heap bytes/word");
+        for (String dataStructure : dataStructures) {
+            double millis = timeParallelParse(file, dataStructure, 1);
+            long before = usedHeapAfterGc();
+            MyMap<String, Integer> map =
+                    CommonWordFinder.createMap(dataStructure);
+            CommonWordFinder.parseAndStoreWords(file, map);
+            long after = usedHeapAfterGc();
+            long tokens = 0;
+            Iterator<Entry<String, Integer>> iterator = map.iterator();
+            while (iterator.hasNext()) {
+                tokens += iterator.next().value;
+            }
+            System.out.printf("%-10s %-10d %-12d %-9.1f %.1f%n", dataStructure,
+                    map.size(), tokens, millis * 1e6 / Math.max(tokens, 1),
+                    (double) (after - before) / Math.max(map.size(), 1));
+        }
+    }
+
+    private static void checkDataStructures(String... dataStructures) {
+        for (String dataStructure : dataStructures) {
+            if (!CommonWordFinder.isValidDataStructure(dataStructure)) {
+                System.err.println("Error: Invalid data structure "
+                        + dataStructure + " received.");
+                System.exit(1);
+            }
+        }
+    }
+
+    /**
+     * Prints the time to parse the file with 1, 4, 16 and 64 threads for each
+     * of the given data structures. Maps that implement ConcurrentMyMap are
+     * shared by all threads; the others get one map per thread that are
+     * merged at the end.
+     * @param file           the text file to parse
+     * @param dataStructures the data structures to compare
+     * @throws IOException if there is a problem reading the file
+     */
+    static void printConcurrentComparison(File file, String[] dataStructures)
+            throws IOException {
+        int[] threadCounts = {1, 4, 16, 64};
+        double megabytes = file.length() / (1024.0 * 1024.0);
+        System.out.println("Structure  Threads  Time (ms)  MB/s");
+        for (String dataStructure : dataStructures) {
+            timeParallelParse(file, dataStructure, 4); // warm-up
+            for (int threads : threadCounts) {
+                double millis = timeParallelParse(file, dataStructure, threads);
+                System.out.printf("%-10s %-8d %-10.1f %.1f%n", dataStructure,
+                        threads, millis, megabytes / (millis / 1000));
+            }
+        }
+    }
+
+    /**
+     * Returns the total time in milliseconds that all garbage collectors have
+     * spent collecting since the JVM started.
+     * @return the total garbage collection time in milliseconds
+     */
+    static long totalGcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc
+                : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(gc.getCollectionTime(), 0);
+        }
+        return millis;
+    }
+
+    /**
+     * Prints the resident memory per unique word, on and off the heap, and the
+     * garbage collection time spent while parsing the file for each of the
+     * given data structures. Run with a fixed heap size (-Xms equal to -Xmx)
+     * so the numbers are comparable.
+     * @param file           the text file to parse
+     * @param dataStructures the data structures to compare
+     * @throws IOException if there is a problem reading the file
+     */
+    static void printMemoryComparison(File file, String[] dataStructures)
+            throws IOException {
+        System.out.println("Structure  Unique     Heap B/word  Off-heap B/word"
+                + "  GC ms  Parse ms");
+        for (String dataStructure : dataStructures) {
+            long before = usedHeapAfterGc();
+            long gcBefore = totalGcMillis();
+            long start = System.nanoTime();
+            MyMap<String, Integer> map =
+                    CommonWordFinder.createMap(dataStructure);
+            CommonWordFinder.parseAndStoreWords(file, map);
+            double millis = (System.nanoTime() - start) / 1e6;
+            long gcMillis = totalGcMillis() - gcBefore;
+            long heap = usedHeapAfterGc() - before;
+            long offHeap = map instanceof OffHeapWordMap offHeapMap
+                    ? offHeapMap.getOffHeapBytes() : 0;
+            int unique = Math.max(map.size(), 1);
+            System.out.printf("%-10s %-10d %-12.1f %-16.1f %-6d %.1f%n",
+                    dataStructure, map.size(), (double) heap / unique,
+                    (double) offHeap / unique, gcMillis, millis);
+        }
+    }
+
+    /**
+     * Prints the bytes allocated per token while counting the file for each
+     * of the given data structures. The file is counted once to fill the map
+     * and then counted again into the same map, so the second pass shows the
+     * steady state where every word is already known.
+     * @param file           the text file to parse
+     * @param dataStructures the data structures to compare
+     * @throws IOException if there is a problem reading the file
+     */
+    static void printAllocationComparison(File file, String[] dataStructures)
+            throws IOException {
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean)
+                        ManagementFactory.getThreadMXBean();
+        System.out.println("Structure  Tokens     First B/token  Steady B/token");
+        for (String dataStructure : dataStructures) {
+            MyMap<String, Integer> map =
+                    CommonWordFinder.createMap(dataStructure);
+            long before = threadBean.getCurrentThreadAllocatedBytes();
+            CommonWordFinder.parseAndStoreWords(file, map);
+            long first = threadBean.getCurrentThreadAllocatedBytes() - before;
+            long tokens = 0;
+            Iterator<Entry<String, Integer>> iter = map.iterator();
+            while (iter.hasNext()) {
+                tokens += iter.next().value;
+            }
+            before = threadBean.getCurrentThreadAllocatedBytes();
+            CommonWordFinder.parseAndStoreWords(file, map);
+            long steady = threadBean.getCurrentThreadAllocatedBytes() - before;
+            long divisor = Math.max(tokens, 1);
+            System.out.printf("%-10s %-10d %-14.2f %.2f%n", dataStructure,
+                    tokens, (double) first / divisor, (double) steady / divisor);
+        }
+    }
+
+    /**
+     * Returns the limit most common words in the map, found by a stream over
+     * map.spliterator(). Each part of the stream keeps its own bounded heap
+     * and the heaps are merged at the end.
+     * @param map      the counted words
+     * @param limit    the number of words wanted
+     * @param parallel true to run the stream in parallel
+     * @return the heap of the limit most common words, least common first
+     */
+    static PriorityQueue<Entry<String, Integer>> streamTopWords(
+            MyMap<String, Integer> map, int limit, boolean parallel) {
+        Comparator<Entry<String, Integer>> order =
+                CommonWordFinder.MOST_COMMON_FIRST.reversed();
+        return StreamSupport.stream(map.spliterator(), parallel).collect(
+                () -> new PriorityQueue<>(limit + 1, order),
+                (heap, e) -> {
+                    heap.add(e);
+                    if (heap.size() > limit) {
+                        heap.poll();
+                    }
+                },
+                (heap, other) -> {
+                    for (Entry<String, Integer> e : other) {
+                        heap.add(e);
+                        if (heap.size() > limit) {
+                            heap.poll();
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Returns the best time in milliseconds out of RUNS runs of a top-10
+     * search and a histogram of word lengths, both done with a stream over
+     * map.spliterator().
+     * @param map      the counted words
+     * @param parallel true to run the streams in parallel
+     * @return the best time in milliseconds
+     */
+    static double timeStreams(MyMap<String, Integer> map, boolean parallel) {
+        double best = Double.MAX_VALUE;
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            streamTopWords(map, 10, parallel);
+            StreamSupport.stream(map.spliterator(), parallel).collect(
+                    () -> new long[64],
+                    (histogram, e) -> histogram[Math.min(e.key.length(), 63)]++,
+                    (histogram, other) -> {
+                        for (int i = 0; i < histogram.length; i++) {
+                            histogram[i] += other[i];
+                        }
+                    });
+            best = Math.min(best, (System.nanoTime() - start) / 1e6);
+        }
+        return best;
+    }
+
+    /**
+     * Prints the time of post-processing the counted words with sequential
+     * and parallel streams for each of the given data structures.
+     * @param file           the text file to parse
+     * @param dataStructures the data structures to compare
+     * @throws IOException if there is a problem reading the file
+     */
+    static void printStreamComparison(File file, String[] dataStructures)
+            throws IOException {
+        System.out.println("Parallelism: "
+                + ForkJoinPool.commonPool().getParallelism());
+        System.out.println("Structure  Unique     Sequential ms  Parallel ms"
+                + "  Speedup");
+        for (String dataStructure : dataStructures) {
+            MyMap<String, Integer> map =
+                    CommonWordFinder.createMap(dataStructure);
+            CommonWordFinder.parseAndStoreWords(file, map);
+            timeStreams(map, false);
+            double sequential = timeStreams(map, false);
+            double parallel = timeStreams(map, true);
+            System.out.printf("%-10s %-10d %-14.1f %-12.1f %.2f%n",
+                    dataStructure, map.size(), sequential, parallel,
+                    sequential / parallel);
+        }
+    }
+
+    /**
+     * Prints the time per put while counting the file and the time per get
+     * of every counted word, looked up in a random order, for each of the
+     * given data structures.
+     * @param file           the text file to parse
+     * @param dataStructures the data structures to compare
+     * @throws IOException if there is a problem reading the file
+     */
+    @SuppressWarnings("unchecked")
+    static void printLookupComparison(File file, String[] dataStructures)
+            throws IOException {
+        System.out.println("Structure  Unique     Put ns/token  Get ns/word");
+        for (String dataStructure : dataStructures) {
+            double bestParse = Double.MAX_VALUE;
+            MyMap<String, Integer> map = null;
+            for (int run = 0; run < RUNS; run++) {
+                map = CommonWordFinder.createMap(dataStructure);
+                long start = System.nanoTime();
+                CommonWordFinder.parseAndStoreWords(file, map);
+                bestParse = Math.min(bestParse, System.nanoTime() - start);
+            }
+            long tokens = 0;
+            String[] words = new String[map.size()];
+            Iterator<Entry<String, Integer>> iter = map.iterator();
+            for (int i = 0; i < words.length; i++) {
+                Entry<String, Integer> e = iter.next();
+                words[i] = e.key;
+                tokens += e.value;
+            }
+            // look the words up in a random order so a tree's leaves or
+            // nodes are not visited one after another
+            Random random = new Random(words.length);
+            for (int i = words.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                String tmp = words[i];
+                words[i] = words[j];
+                words[j] = tmp;
+            }
+            double bestGet = Double.MAX_VALUE;
+            long found = 0;
+            for (int run = 0; run <= RUNS; run++) {
+                long start = System.nanoTime();
+                for (String word : words) {
+                    found += map.get(word) != null ? 1 : 0;
+                }
+                bestGet = Math.min(bestGet, System.nanoTime() - start);
+            }
+            if (found != (long) (RUNS + 1) * words.length) {
+                throw new IllegalStateException(dataStructure
+                        + " lost words");
+            }
+            System.out.printf("%-10s %-10d %-13.1f %.1f%n", dataStructure,
+                    words.length, bestParse / Math.max(tokens, 1),
+                    bestGet / Math.max(words.length, 1));
+        }
+    }
+
+    /**
+     * Prints how many keys each tree compares to find a word: per distinct
+     * word, as given by successfulSearchCost, and per token, weighting every
+     * word by its count in the finished tree. A splay tree reshapes itself on
+     * every search, so the comparisons its searches really made while the
+     * file was counted are printed as well.
+     * @param file           the text file to parse
+     * @param dataStructures the tree data structures to compare
+     * @throws IOException if there is a problem reading the file
+     */
+    static void printSearchCostComparison(File file, String[] dataStructures)
+            throws IOException {
+        System.out.println("Structure  Unique     Per word  Per token  "
+                + "Splayed   Time (ms)");
+        for (String dataStructure : dataStructures) {
+            MyMap<String, Integer> map =
+                    CommonWordFinder.createMap(dataStructure);
+            if (!(map instanceof BSTMap)) {
+                System.out.printf("%-10s not a binary search tree%n",
+                        dataStructure);
+                continue;
+            }
+            long start = System.nanoTime();
+            CommonWordFinder.parseAndStoreWords(file, map);
+            double millis = (System.nanoTime() - start) / 1e6;
+            BSTMap<String, Integer> tree = (BSTMap<String, Integer>) map;
+            String splayed = tree instanceof SplayTreeMap
+                    ? String.format("%.3f",
+                            ((SplayTreeMap<String, Integer>) tree)
+                                    .averageComparisons())
+                    : "-";
+            System.out.printf("%-10s %-10d %-9.3f %-10.3f %-9s %.1f%n",
+                    dataStructure, tree.size(), tree.successfulSearchCost(),
+                    tree.weightedSearchCost(count -> count), splayed, millis);
+        }
+    }
+
+    /**
+     * Counts the file into a new hash map with the given I/O mode of
+     * CommonWordFinder and returns the time in milliseconds.
+     * @param file   the text file to parse
+     * @param ioMode mmap, reader, async or pipeline
+     * @return the time in milliseconds
+     * @throws IOException if there is a problem reading the file
+     */
+    static double timeIoMode(File file, String ioMode) throws IOException {
+        MyMap<String, Integer> map = CommonWordFinder.createMap("hash");
+        long start = System.nanoTime();
+        if (ioMode.equals("mmap")) {
+            CommonWordFinder.parseAndStoreWords(file, map);
+        } else if (ioMode.equals("reader")) {
+            CommonWordFinder.parseAndStoreWordsWithReader(file, map);
+        } else if (ioMode.equals("async")) {
+            CommonWordFinder.parseAndStoreWordsAsync(file, map);
+        } else {
+            new WordPipeline(() -> CommonWordFinder.createMap("hash"), 1, 1)
+                    .count(new FileInputStream(file), map);
+        }
+        return (System.nanoTime() - start) / 1e6;
+    }
+
+    /**
+     * Prints the time of each I/O mode's first run over the file and its best
+     * time out of RUNS runs after that. Only the first run of the first mode
+     * reads the file from disk unless the page cache has been dropped, so to
+     * compare modes on a cold cache, drop the cache and run one mode per
+     * invocation.
+     * @param file    the text file to parse
+     * @param ioModes the I/O modes to compare
+     * @throws IOException if there is a problem reading the file
+     */
+    static void printIoComparison(File file, String[] ioModes)
+            throws IOException {
+        System.out.println("Mode       First run ms  Best of rest ms");
+        for (String ioMode : ioModes) {
+            double first = timeIoMode(file, ioMode);
+            double best = Double.MAX_VALUE;
+            for (int run = 0; run < RUNS; run++) {
+                best = Math.min(best, timeIoMode(file, ioMode));
+            }
+            System.out.printf("%-10s %-13.1f %.1f%n", ioMode, first, best);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: java WordFinderBenchmark threads "
+                    + "<filename> [data structure] [max threads]");
+            System.err.println("       java WordFinderBenchmark structures "
+                    + "<filename> [data structure...]");
+            System.err.println("       java WordFinderBenchmark memory "
+                    + "<filename> [data structure...]");
+            System.err.println("       java WordFinderBenchmark concurrent "
+                    + "<filename> [data structure...]");
+            System.err.println("       java WordFinderBenchmark allocation "
+                    + "<filename> [data structure...]");
+            System.err.println("       java WordFinderBenchmark streams "
+                    + "<filename> [data structure...]");
+            System.err.println("       java WordFinderBenchmark lookups "
+                    + "<filename> [data structure...]");
+            System.err.println("       java WordFinderBenchmark searchcost "
+                    + "<filename> [data structure...]");
+            System.err.println("       java WordFinderBenchmark io "
+                    + "<filename> [mmap|reader|async|pipeline...]");
+            System.exit(1);
+        }
+        File file = new File(args[1]);
+        if (!file.isFile()) {
+            System.err.println("Error: Cannot open file " + args[1]
+                    + " for input.");
+            System.exit(1);
+        }
+        System.out.println("File: " + file.getName() + ", "
+                + file.length() + " bytes");
+        if (args[0].equals("threads")) {
+            String dataStructure = args.length > 2 ? args[2] : "hash";
+            checkDataStructures(dataStructure);
+            int maxThreads = args.length > 3 ? Integer.parseInt(args[3])
+                    : Runtime.getRuntime().availableProcessors();
+            printThreadScaling(file, dataStructure, maxThreads);
+        } else if (args[0].equals("structures")) {
+            String[] dataStructures = args.length > 2
+                    ? Arrays.copyOfRange(args, 2, args.length)
+                    : CommonWordFinder.validDataStructures;
+            checkDataStructures(dataStructures);
+            printStructureComparison(file, dataStructures);
+        } else if (args[0].equals("memory")) {
+            String[] dataStructures = args.length > 2
+                    ? Arrays.copyOfRange(args, 2, args.length)
+                    : new String[] {"hash", "counter", "offheap"};
+            checkDataStructures(dataStructures);
+            printMemoryComparison(file, dataStructures);
+        } else if (args[0].equals("concurrent")) {
+            String[] dataStructures = args.length > 2
+                    ? Arrays.copyOfRange(args, 2, args.length)
+                    : new String[] {"hash", "counter", "striped", "lockfree"};
+            checkDataStructures(dataStructures);
+            printConcurrentComparison(file, dataStructures);
+        } else if (args[0].equals("allocation")) {
+            String[] dataStructures = args.length > 2
+                    ? Arrays.copyOfRange(args, 2, args.length)
+                    : CommonWordFinder.validDataStructures;
+            checkDataStructures(dataStructures);
+            printAllocationComparison(file, dataStructures);
+        } else if (args[0].equals("streams")) {
+            String[] dataStructures = args.length > 2
+                    ? Arrays.copyOfRange(args, 2, args.length)
+                    : new String[] {"hash", "avl", "counter"};
+            checkDataStructures(dataStructures);
+            printStreamComparison(file, dataStructures);
+        } else if (args[0].equals("lookups")) {
+            String[] dataStructures = args.length > 2
+                    ? Arrays.copyOfRange(args, 2, args.length)
+                    : new String[] {"bst", "avl", "btree", "hash"};
+            checkDataStructures(dataStructures);
+            printLookupComparison(file, dataStructures);
+        } else if (args[0].equals("searchcost")) {
+            String[] dataStructures = args.length > 2
+                    ? Arrays.copyOfRange(args, 2, args.length)
+                    : new String[] {"bst", "avl", "splay"};
+            checkDataStructures(dataStructures);
+            printSearchCostComparison(file, dataStructures);
+        } else if (args[0].equals("io")) {
+            String[] ioModes = args.length > 2
+                    ? Arrays.copyOfRange(args, 2, args.length)
+                    : new String[] {"mmap", "reader", "async"};
+            for (String ioMode : ioModes) {
+                if (!Arrays.asList("mmap", "reader", "async", "pipeline")
+                        .contains(ioMode)) {
+                    System.err.println("Error: Invalid I/O mode " + ioMode
+                            + " received.");
+                    System.exit(1);
+                }
+            }
+            printIoComparison(file, ioModes);
+        } else {
+            System.err.println("Error: Invalid benchmark " + args[0]
+                    + " received.");
+            System.exit(1);
+        }
+    }
+}
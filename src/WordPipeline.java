@@ -0,0 +1,434 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Class for counting the words of a stream with a pipeline of three stages,
+ * each on its own threads:
+ * <ul>
+ * <li>a reader that fills large byte buffers from the stream, each ending at
+ * white space so no word is split between two buffers,</li>
+ * <li>tokenizers that split the buffers into words and put each word into a
+ * batch for the shard its hash code belongs to,</li>
+ * <li>aggregators that each own one shard of the map, a map holding only the
+ * words whose hash codes fall in that shard, and count the batches of it.</li>
+ * </ul>
+ * The stages hand buffers and batches to each other through rings: a fixed
+ * set of preallocated slots that go around two bounded queues, one of free
+ * slots and one of full ones, so nothing is allocated per buffer or batch
+ * and a fast stage waits for a slow one instead of running ahead. A batch
+ * holds BATCH_SIZE words, so the queues are touched once per few thousand
+ * words rather than once per word. No two aggregators ever see the same
+ * word, so the shards need no locks and are merged at the end without
+ * adding up any counts. Each stage keeps track of how long its threads were
+ * busy and how long they waited on the stages around them; utilization
+ * reports this, so the stage that holds the others up can be seen.
+ * @author Andrew Jung
+ * @version 1.0 October 18, 2026
+ */
+public class WordPipeline {
+    // Size of each buffer the reader fills.
+    static final int BUFFER_SIZE = 1 << 22;
+    // Number of words in a full batch.
+    static final int BATCH_SIZE = 4096;
+
+    // Queued after the last full buffer. Taking it puts it back, so every
+    // tokenizer sees it.
+    private static final ByteBuffer END_OF_TEXT = ByteBuffer.allocate(0);
+    // Queued to every aggregator once the last tokenizer is done.
+    private static final Batch END_OF_BATCHES = new Batch(0);
+
+    private final Supplier<MyMap<String, Integer>> mapFactory;
+    private final int tokenizers, aggregators;
+    // replaced at the start of every count
+    private volatile Stage reading, tokenizing, aggregating;
+    private volatile long elapsedNanos;
+
+    /**
+     * Words of one shard. Word i is the chars from offsets[i] to
+     * offsets[i + 1].
+     */
+    private static final class Batch {
+        final int[] offsets;
+        char[] chars;
+        int size;
+
+        Batch(int capacity) {
+            offsets = new int[capacity + 1];
+            chars = new char[capacity * 8];
+        }
+
+        /**
+         * Adds the first length chars of word to the batch.
+         * @return true if the batch is now full
+         */
+        boolean add(char[] word, int length) {
+            int start = offsets[size];
+            if (start + length > chars.length) {
+                chars = Arrays.copyOf(chars, Math.max(chars.length * 2,
+                        start + length));
+            }
+            System.arraycopy(word, 0, chars, start, length);
+            offsets[++size] = start + length;
+            return size == offsets.length - 1;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+
+    /**
+     * A fixed set of slots going around a queue of free slots and a queue of
+     * full ones. The full queue has room for one more element than there are
+     * slots, so an end marker always fits.
+     */
+    private static final class Ring<T> {
+        final BlockingQueue<T> free, full;
+
+        Ring(int slots, Supplier<T> slot) {
+            free = new ArrayBlockingQueue<>(slots);
+            full = new ArrayBlockingQueue<>(slots + 1);
+            for (int i = 0; i < slots; i++) {
+                free.add(slot.get());
+            }
+        }
+    }
+
+    /**
+     * The time the threads of one stage spent in total, and waiting on the
+     * stage before and after them.
+     */
+    private static final class Stage {
+        final String name;
+        final AtomicInteger threads = new AtomicInteger();
+        final LongAdder totalNanos = new LongAdder();
+        final LongAdder inputWaitNanos = new LongAdder();
+        final LongAdder outputWaitNanos = new LongAdder();
+
+        Stage(String name) {
+            this.name = name;
+        }
+
+        void add(long total, long inputWait, long outputWait) {
+            threads.incrementAndGet();
+            totalNanos.add(total);
+            inputWaitNanos.add(inputWait);
+            outputWaitNanos.add(outputWait);
+        }
+
+        String report() {
+            long total = Math.max(totalNanos.sum(), 1);
+            long inputWait = inputWaitNanos.sum();
+            long outputWait = outputWaitNanos.sum();
+            return String.format("%-10s %7d %4.0f%% %17.0f%% %18.0f%%",
+                    name, threads.get(),
+                    100.0 * (total - inputWait - outputWait) / total,
+                    100.0 * inputWait / total, 100.0 * outputWait / total);
+        }
+    }
+
+    /**
+     * Creates a pipeline with the given number of tokenizer and aggregator
+     * threads.
+     * @param mapFactory  creates the shard of each aggregator after the first
+     * @param tokenizers  the number of tokenizer threads
+     * @param aggregators the number of aggregator threads, and so of shards
+     * @throws IllegalArgumentException if either number is not positive
+     */
+    public WordPipeline(Supplier<MyMap<String, Integer>> mapFactory,
+                        int tokenizers, int aggregators) {
+        if (tokenizers <= 0 || aggregators <= 0) {
+            throw new IllegalArgumentException("thread counts must be positive: "
+                    + tokenizers + ", " + aggregators);
+        }
+        this.mapFactory = mapFactory;
+        this.tokenizers = tokenizers;
+        this.aggregators = aggregators;
+    }
+
+    /**
+     * Counts the words of the stream into map and closes the stream. The
+     * first aggregator counts into map itself and the others into shards made
+     * by mapFactory, which are merged into map at the end; if map is a
+     * ConcurrentMyMap, every aggregator counts into it.
+     * @param in  the UTF-8 text to count
+     * @param map the data structure to store the words in
+     * @throws IOException if there is a problem reading the stream
+     */
+    public void count(InputStream in, MyMap<String, Integer> map)
+            throws IOException {
+        long start = System.nanoTime();
+        reading = new Stage("reader");
+        tokenizing = new Stage("tokenizer");
+        aggregating = new Stage("aggregator");
+        // every tokenizer can hold a buffer while one is being filled and
+        // one more waits in the queue
+        Ring<ByteBuffer> text = new Ring<>(tokenizers + 2,
+                () -> ByteBuffer.allocate(BUFFER_SIZE));
+        List<Ring<Batch>> shards = new ArrayList<>();
+        for (int i = 0; i < aggregators; i++) {
+            // every tokenizer can fill a batch of each shard while the
+            // aggregator counts one and another waits
+            shards.add(new Ring<>(tokenizers + 2, () -> new Batch(BATCH_SIZE)));
+        }
+        List<MyMap<String, Integer>> shardMaps = new ArrayList<>();
+        for (int i = 0; i < aggregators; i++) {
+            shardMaps.add(i == 0 || map instanceof ConcurrentMyMap
+                    ? map : mapFactory.get());
+        }
+        AtomicInteger tokenizersLeft = new AtomicInteger(tokenizers);
+
+        ExecutorService executor =
+                Executors.newFixedThreadPool(1 + tokenizers + aggregators);
+        CompletionService<Void> stages = new ExecutorCompletionService<>(executor);
+        try {
+            stages.submit(() -> {
+                read(in, text);
+                return null;
+            });
+            for (int i = 0; i < tokenizers; i++) {
+                stages.submit(() -> {
+                    tokenize(text, shards, tokenizersLeft);
+                    return null;
+                });
+            }
+            for (int i = 0; i < aggregators; i++) {
+                Ring<Batch> shard = shards.get(i);
+                MyMap<String, Integer> shardMap = shardMaps.get(i);
+                stages.submit(() -> {
+                    aggregate(shard, shardMap);
+                    return null;
+                });
+            }
+            // a stage that fails would leave the others waiting on it, so
+            // stop them all at the first failure
+            for (int i = 0; i < 1 + tokenizers + aggregators; i++) {
+                stages.take().get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while counting");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+            in.close();
+        }
+        CommonWordFinder.mergePartialMaps(map, shardMaps);
+        elapsedNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * The reader stage: fills free buffers from the stream and queues them as
+     * full until the stream ends, then queues END_OF_TEXT. Every buffer ends
+     * at a white space byte, with the rest carried over to the start of the
+     * next one. A buffer that fills up without any white space is replaced
+     * with one twice its size, so no run of bytes is ever split.
+     */
+    private void read(InputStream in, Ring<ByteBuffer> text)
+            throws IOException, InterruptedException {
+        long start = System.nanoTime(), outputWait = 0;
+        byte[] carry = new byte[0];
+        try {
+            boolean ended = false;
+            while (!ended) {
+                long waitStart = System.nanoTime();
+                ByteBuffer buffer = text.free.take();
+                outputWait += System.nanoTime() - waitStart;
+                if (buffer.capacity() <= carry.length) {
+                    // the carry came from a grown buffer and needs room to
+                    // read more after it
+                    buffer = ByteBuffer.allocate(carry.length + BUFFER_SIZE);
+                }
+                byte[] bytes = buffer.array();
+                int length = carry.length;
+                System.arraycopy(carry, 0, bytes, 0, length);
+                int end;
+                while (true) {
+                    while (length < bytes.length) {
+                        int read = in.read(bytes, length, bytes.length - length);
+                        if (read < 0) {
+                            ended = true;
+                            break;
+                        }
+                        length += read;
+                    }
+                    end = length;
+                    while (!ended && end > 0 && WordTokenizer.TYPES[bytes[end - 1] & 0xFF]
+                            != WordTokenizer.WHITESPACE) {
+                        end--;
+                    }
+                    if (end > 0 || ended) {
+                        break;
+                    }
+                    // no white space at all, so grow the buffer and read on
+                    // rather than split a word
+                    buffer = ByteBuffer.allocate(bytes.length * 2);
+                    System.arraycopy(bytes, 0, buffer.array(), 0, length);
+                    bytes = buffer.array();
+                }
+                carry = Arrays.copyOfRange(bytes, end, length);
+                buffer.clear();
+                buffer.limit(end);
+                waitStart = System.nanoTime();
+                text.full.put(buffer);
+                outputWait += System.nanoTime() - waitStart;
+            }
+        } finally {
+            text.full.offer(END_OF_TEXT);
+            reading.add(System.nanoTime() - start, 0, outputWait);
+        }
+    }
+
+    /**
+     * A tokenizer stage: splits full buffers into words and sorts them into
+     * one open batch per shard, queueing each batch when it fills. When the
+     * text runs out it queues its partly filled batches, and the last
+     * tokenizer to finish queues END_OF_BATCHES to every shard.
+     */
+    private void tokenize(Ring<ByteBuffer> text, List<Ring<Batch>> shards,
+                          AtomicInteger tokenizersLeft)
+            throws InterruptedException {
+        long start = System.nanoTime();
+        long[] waits = new long[2]; // input, output
+        Batch[] open = new Batch[shards.size()];
+        WordTokenizer tokenizer = new WordTokenizer((word, length) -> {
+            int shard = shardOf(CharSlice.hashCode(word, 0, length), open.length);
+            try {
+                if (open[shard] == null) {
+                    long waitStart = System.nanoTime();
+                    open[shard] = shards.get(shard).free.take();
+                    waits[1] += System.nanoTime() - waitStart;
+                }
+                if (open[shard].add(word, length)) {
+                    long waitStart = System.nanoTime();
+                    shards.get(shard).full.put(open[shard]);
+                    waits[1] += System.nanoTime() - waitStart;
+                    open[shard] = null;
+                }
+            } catch (InterruptedException e) {
+                // the sink cannot throw, so carry the interrupt out to the
+                // next take, which throws it
+                Thread.currentThread().interrupt();
+            }
+        });
+        try {
+            while (true) {
+                long waitStart = System.nanoTime();
+                ByteBuffer buffer = text.full.take();
+                waits[0] += System.nanoTime() - waitStart;
+                if (buffer == END_OF_TEXT) {
+                    text.full.offer(END_OF_TEXT);
+                    break;
+                }
+                tokenizer.feed(buffer);
+                text.free.offer(buffer);
+            }
+            // every buffer ends at white space, so this only ends a word when
+            // the last buffer of the text does not
+            tokenizer.finish();
+            for (int i = 0; i < open.length; i++) {
+                if (open[i] != null) {
+                    long waitStart = System.nanoTime();
+                    shards.get(i).full.put(open[i]);
+                    waits[1] += System.nanoTime() - waitStart;
+                }
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        } finally {
+            if (tokenizersLeft.decrementAndGet() == 0) {
+                for (Ring<Batch> shard : shards) {
+                    shard.full.offer(END_OF_BATCHES);
+                }
+            }
+            tokenizing.add(System.nanoTime() - start, waits[0], waits[1]);
+        }
+    }
+
+    /**
+     * An aggregator stage: counts the full batches of its shard into the
+     * shard's map until END_OF_BATCHES, giving each batch back once counted.
+     */
+    private void aggregate(Ring<Batch> shard, MyMap<String, Integer> map)
+            throws InterruptedException {
+        long start = System.nanoTime(), inputWait = 0;
+        WordCounter counter = map instanceof WordCounter ? (WordCounter) map : null;
+        try {
+            while (true) {
+                long waitStart = System.nanoTime();
+                Batch batch = shard.full.take();
+                inputWait += System.nanoTime() - waitStart;
+                if (batch == END_OF_BATCHES) {
+                    break;
+                }
+                for (int i = 0; i < batch.size; i++) {
+                    int offset = batch.offsets[i];
+                    int length = batch.offsets[i + 1] - offset;
+                    if (counter != null) {
+                        counter.increment(batch.chars, offset, length, 1);
+                    } else {
+                        map.merge(new String(batch.chars, offset, length), 1,
+                                Integer::sum);
+                    }
+                }
+                batch.clear();
+                shard.free.offer(batch);
+            }
+        } finally {
+            aggregating.add(System.nanoTime() - start, inputWait, 0);
+        }
+    }
+
+    /**
+     * Returns the shard of a word with the given hash code. The hash code is
+     * multiplied by a large odd constant and the shard is taken from the high
+     * bits of the product, so the words of one shard do not all share the low
+     * bits a hash map indexes its buckets with.
+     * @param hash   the hash code of the word
+     * @param shards the number of shards
+     * @return the shard of the word, from 0 to shards - 1
+     */
+    static int shardOf(int hash, int shards) {
+        int mixed = (hash * 0x9E3779B9) >>> 1;
+        return (int) (((long) mixed * shards) >>> 31);
+    }
+
+    /**
+     * Returns a table of how each stage spent the last count: the share of
+     * its threads' time that was spent working, waiting for the stage before
+     * it, and waiting for the stage after it. The stage with the most busy
+     * time holds the others up.
+     * @return the utilization of each stage
+     */
+    public String utilization() {
+        if (reading == null) {
+            return "Nothing has been counted yet" + System.lineSeparator();
+        }
+        String newline = System.lineSeparator();
+        return String.format("Pipeline finished in %.1f ms", elapsedNanos / 1e6)
+                + newline
+                + "Stage      Threads  Busy  Waiting for input  Waiting for output"
+                + newline + reading.report() + newline + tokenizing.report()
+                + newline + aggregating.report() + newline;
+    }
+}
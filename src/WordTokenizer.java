@@ -0,0 +1,325 @@
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Class for splitting UTF-8 encoded bytes into words using the same rules as
+ * CommonWordFinder.parseAndStoreWordsWithReader. ASCII bytes are classified
+ * with a 256-entry lookup table, so the common case never decodes a char.
+ * Multi-byte characters are decoded and run through isValidSymbol,
+ * isWhiteSpace and isIllegalSymbol like the reader does. A word may be split
+ * across calls to feed, so the input can be scanned in any number of pieces.
+ * @author Andrew Jung
+ * @version 1.0 October 18, 2026
+ */
+public class WordTokenizer {
+    // Size of each window mapped with FileChannel.map. A single mapping is
+    // limited to Integer.MAX_VALUE bytes, so larger files use several.
+    static final long MAPPING_SIZE = 1 << 28;
+    // Size of each buffer read into by the asynchronous feed.
+    static final int ASYNC_BUFFER_SIZE = 1 << 20;
+
+    // Byte classes stored in TYPES.
+    static final byte WHITESPACE = 0; // ends a word
+    static final byte LETTER = 1;     // starts a word, kept inside a word
+    static final byte HYPHEN = 2;     // skipped before a word, kept inside
+    static final byte SYMBOL = 3;     // skipped before a word, dropped inside
+    static final byte DELETE = 4;     // starts a word, dropped inside
+    static final byte MULTIBYTE = 5;  // part of a multi-byte UTF-8 character
+
+    static final byte[] TYPES = new byte[256];
+    static final char[] LOWER = new char[256];
+
+    static {
+        for (int b = 0; b < 256; b++) {
+            char c = Character.toLowerCase((char) b);
+            if (b >= 128) {
+                TYPES[b] = MULTIBYTE;
+            } else if (CommonWordFinder.isWhiteSpace(c)) {
+                TYPES[b] = WHITESPACE;
+            } else if (c == '-') {
+                TYPES[b] = HYPHEN;
+            } else if (CommonWordFinder.isValidSymbol(c)) {
+                TYPES[b] = LETTER;
+            } else if (CommonWordFinder.isIllegalSymbol(c)) {
+                TYPES[b] = SYMBOL;
+            } else {
+                TYPES[b] = DELETE;
+            }
+            LOWER[b] = c;
+        }
+    }
+
+    /**
+     * Takes the words of a tokenizer in place of a map, for callers that do
+     * their own counting.
+     */
+    interface WordSink {
+        /**
+         * Takes the next word, which is the first length chars of word. The
+         * array is reused for the following words once this returns.
+         * @param word   the buffer holding the word
+         * @param length the number of chars in the word
+         */
+        void accept(char[] word, int length);
+    }
+
+    private final MyMap<String, Integer> map;
+    // set when the words go to a sink instead of the map
+    private final WordSink sink;
+    // set when the map can count without boxing
+    private final WordCounter counter;
+    private char[] word = new char[32];
+    private int length;
+    private boolean inWord;
+    // Decoder state for a multi-byte character that is still being read.
+    private int pendingBytes, codePoint, minCodePoint;
+
+    /**
+     * Creates a tokenizer that counts the words it finds in the given map.
+     * @param map the data structure to store words in
+     */
+    public WordTokenizer(MyMap<String, Integer> map) {
+        this.map = map;
+        this.sink = null;
+        this.counter = map instanceof WordCounter ? (WordCounter) map : null;
+    }
+
+    /**
+     * Creates a tokenizer that hands the words it finds to the sink.
+     * @param sink takes each word as it ends
+     */
+    WordTokenizer(WordSink sink) {
+        this.map = null;
+        this.sink = sink;
+        this.counter = null;
+    }
+
+    /**
+     * Scans the bytes between start and end of the channel by mapping them
+     * into memory one window at a time.
+     * @param channel the file to scan
+     * @param start   the offset of the first byte to scan
+     * @param end     the offset one past the last byte to scan
+     * @throws IOException if the file cannot be mapped
+     */
+    public void feed(FileChannel channel, long start, long end)
+            throws IOException {
+        for (long position = start; position < end; position += MAPPING_SIZE) {
+            long windowSize = Math.min(MAPPING_SIZE, end - position);
+            MappedByteBuffer buffer = channel.map(
+                    FileChannel.MapMode.READ_ONLY, position, windowSize);
+            feed(buffer);
+        }
+    }
+
+    /**
+     * Scans the bytes between start and end of the channel while the next
+     * parts of the file are still being read. The given number of buffers
+     * are read into at consecutive offsets at the same time; each buffer is
+     * scanned as soon as its read completes, then starts reading the part
+     * of the file after the last buffer in flight, so the disk is never left
+     * idle while a buffer is scanned. A word cut off at the end of a buffer
+     * is carried over to the next one like any other call to feed.
+     * @param channel the file to scan
+     * @param start   the offset of the first byte to scan
+     * @param end     the offset one past the last byte to scan
+     * @param buffers the number of reads to keep in flight, at least 1
+     * @throws IOException if the file cannot be read
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void feed(AsynchronousFileChannel channel, long start, long end,
+                     int buffers) throws IOException {
+        ByteBuffer[] ring = new ByteBuffer[Math.max(buffers, 1)];
+        Future<Integer>[] reads = new Future[ring.length];
+        long[] positions = new long[ring.length];
+        long next = start;
+        for (int i = 0; i < ring.length && next < end; i++) {
+            ring[i] = ByteBuffer.allocateDirect(ASYNC_BUFFER_SIZE);
+            next = startRead(channel, ring, reads, positions, i, next, end);
+        }
+        // the buffers are started in order and restarted in the same order,
+        // so taking them round-robin scans the file in order
+        for (int i = 0; reads[i] != null; i = (i + 1) % ring.length) {
+            ByteBuffer buffer = ring[i];
+            int read = await(reads[i]);
+            // a read may stop short of the limit, so finish it before the
+            // buffer is scanned
+            while (read >= 0 && buffer.hasRemaining()) {
+                read = await(channel.read(buffer,
+                        positions[i] + buffer.position()));
+            }
+            buffer.flip();
+            feed(buffer);
+            reads[i] = null;
+            if (next < end) {
+                next = startRead(channel, ring, reads, positions, i, next, end);
+            }
+        }
+    }
+
+    /**
+     * Starts reading the part of the file at position into buffer i of the
+     * ring, up to the buffer's capacity or end.
+     * @return the offset just past the part being read
+     */
+    private static long startRead(AsynchronousFileChannel channel,
+                                  ByteBuffer[] ring, Future<Integer>[] reads,
+                                  long[] positions, int i, long position,
+                                  long end) {
+        ByteBuffer buffer = ring[i];
+        buffer.clear();
+        buffer.limit((int) Math.min(buffer.capacity(), end - position));
+        positions[i] = position;
+        reads[i] = channel.read(buffer, position);
+        return position + buffer.limit();
+    }
+
+    /**
+     * Waits for an asynchronous read to complete.
+     * @param read the pending read
+     * @return the number of bytes read, or -1 at the end of the file
+     * @throws IOException if the read failed or the wait was interrupted
+     */
+    private static int await(Future<Integer> read) throws IOException {
+        try {
+            return read.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Scans the bytes between the buffer's position and limit. The position
+     * is moved to the limit afterwards.
+     * @param buffer the bytes to scan
+     */
+    public void feed(ByteBuffer buffer) {
+        int end = buffer.limit();
+        for (int i = buffer.position(); i < end; i++) {
+            int b = buffer.get(i) & 0xFF;
+            if (pendingBytes > 0) {
+                if ((b & 0xC0) == 0x80) {
+                    continueCharacter(b);
+                    continue;
+                }
+                // the character was cut short, so the decoder would have
+                // produced a replacement character before this byte
+                pendingBytes = 0;
+                acceptChar('\uFFFD');
+            }
+            byte type = TYPES[b];
+            if (type == WHITESPACE) {
+                if (inWord) {
+                    endWord();
+                }
+            } else if (type == MULTIBYTE) {
+                startCharacter(b);
+            } else if (inWord) {
+                if (type <= HYPHEN) {
+                    append(LOWER[b]);
+                }
+            } else if (type == LETTER || type == DELETE) {
+                inWord = true;
+                append(LOWER[b]);
+            }
+        }
+        buffer.position(end);
+    }
+
+    /**
+     * Signals the end of the input, storing the last word if there is one.
+     */
+    public void finish() {
+        if (pendingBytes > 0) {
+            pendingBytes = 0;
+            acceptChar('\uFFFD');
+        }
+        if (inWord) {
+            endWord();
+        }
+    }
+
+    private void startCharacter(int b) {
+        if (b >= 0xC2 && b <= 0xDF) {
+            pendingBytes = 1;
+            codePoint = b & 0x1F;
+            minCodePoint = 0x80;
+        } else if (b >= 0xE0 && b <= 0xEF) {
+            pendingBytes = 2;
+            codePoint = b & 0x0F;
+            minCodePoint = 0x800;
+        } else if (b >= 0xF0 && b <= 0xF4) {
+            pendingBytes = 3;
+            codePoint = b & 0x07;
+            minCodePoint = 0x10000;
+        } else {
+            acceptChar('\uFFFD');
+        }
+    }
+
+    private void continueCharacter(int b) {
+        codePoint = (codePoint << 6) | (b & 0x3F);
+        if (--pendingBytes > 0) {
+            return;
+        }
+        if (codePoint < minCodePoint || codePoint > Character.MAX_CODE_POINT
+                || (codePoint >= Character.MIN_SURROGATE
+                    && codePoint <= Character.MAX_SURROGATE)) {
+            acceptChar('\uFFFD');
+        } else if (codePoint >= Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+            acceptChar(Character.highSurrogate(codePoint));
+            acceptChar(Character.lowSurrogate(codePoint));
+        } else {
+            acceptChar((char) codePoint);
+        }
+    }
+
+    /**
+     * Applies the character-level rules to a decoded non-ASCII character.
+     * @param c the decoded character
+     */
+    private void acceptChar(char c) {
+        char character = Character.toLowerCase(c);
+        if (inWord) {
+            if (CommonWordFinder.isValidSymbol(character)) {
+                append(character);
+            }
+        } else if (!CommonWordFinder.isWhiteSpace(character)
+                && !CommonWordFinder.isIllegalSymbol(character)) {
+            inWord = true;
+            append(character);
+        }
+    }
+
+    private void append(char c) {
+        if (length == word.length) {
+            word = Arrays.copyOf(word, length * 2);
+        }
+        word[length++] = c;
+    }
+
+    private void endWord() {
+        if (sink != null) {
+            sink.accept(word, length);
+        } else if (counter != null) {
+            counter.increment(word, 0, length, 1);
+        } else {
+            map.merge(new String(word, 0, length), 1, Integer::sum);
+        }
+        length = 0;
+        inWord = false;
+    }
+}
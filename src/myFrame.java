@@ -11,6 +11,7 @@ import java.awt.event.ActionListener;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 
 public class myFrame extends JFrame implements ActionListener {
@@ -100,7 +101,11 @@ public class myFrame extends JFrame implements ActionListener {
                 if (transferable.isDataFlavorSupported(DataFlavor.javaFileListFlavor)) {
                     try {
                         List<File> files = (List<File>) transferable.getTransferData(DataFlavor.javaFileListFlavor);
-                        if (files.size() == 1) {
+                        // a dropped directory or several dropped files are counted together
+                        if (files.size() > 1 || (files.size() == 1 && files.get(0).isDirectory())) {
+                            handleCorpusDisplay(files);
+                        }
+                        else if (files.size() == 1) {
                             // Do something with the dropped file(s)
                             String filePath = files.get(0).getAbsolutePath();
                             Path path = Path.of(filePath);
@@ -137,11 +142,15 @@ public class myFrame extends JFrame implements ActionListener {
         if(e.getSource()==fileChooserButton){
             JFileChooser fileChooser = new JFileChooser();
             fileChooser.setCurrentDirectory(new File("~"));
+            fileChooser.setFileSelectionMode(JFileChooser.FILES_AND_DIRECTORIES);
             //returns 0 if file successfully chosen
             int response = fileChooser.showOpenDialog(null);
             if(response == JFileChooser.APPROVE_OPTION){
                 Path path = Path.of(fileChooser.getSelectedFile().getAbsolutePath());
-                if(!isTxtFile(path)){
+                if(fileChooser.getSelectedFile().isDirectory()){
+                    handleCorpusDisplay(List.of(fileChooser.getSelectedFile()));
+                }
+                else if(!isTxtFile(path)){
                     textArea.setText("File provided is not a valid text file.");
                 }
                 else{
@@ -181,10 +190,10 @@ public class myFrame extends JFrame implements ActionListener {
             this.revalidate();
             this.repaint();
         }
-        Entry<String,Integer>[] arrayOfWords = CommonWordFinder.mostCommonWords(map);
         if(map.size() < limit){
             limit = map.size();
         }
+        Entry<String,Integer>[] arrayOfWords = CommonWordFinder.mostCommonWords(map, limit);
         String displayText = CommonWordFinder.stringOfMostCommonWords(limit, arrayOfWords);
         textArea.setText(displayText);
         countLabel.setText("Total Unique Words: " + map.size());
@@ -204,19 +213,68 @@ public class myFrame extends JFrame implements ActionListener {
             this.revalidate();
             this.repaint();
         }
-        Entry<String,Integer>[] arrayOfWords = CommonWordFinder.mostCommonWords(map);
         if(map.size() < limit){
             limit = map.size();
         }
+        Entry<String,Integer>[] arrayOfWords = CommonWordFinder.mostCommonWords(map, limit);
         String displayText = CommonWordFinder.stringOfMostCommonWords(limit, arrayOfWords);
         textArea.setText(displayText);
         countLabel.setText("Total Unique Words: " + map.size());
         this.revalidate();
         this.repaint();
     }
+    /**
+     * Counts the words of every text file among the files and under the directories in the
+     * background, showing the bytes counted so far in the count label, then displays the most
+     * common words of all of them together
+     * @param files the files and directories to count
+     */
+    public void handleCorpusDisplay(List<File> files){
+        MyMap<String, Integer> map = new MyHashMap<>();
+        CorpusCounter counter = new CorpusCounter(MyHashMap::new,
+                Runtime.getRuntime().availableProcessors());
+        // the full progress line is too long for the label, so only the share counted is shown
+        Timer progressTimer = new Timer(500, e -> countLabel.setText(String.format(
+                "Counted %d%% of %.0f MB", counter.bytesCounted() * 100 / Math.max(counter.totalBytes(), 1),
+                counter.totalBytes() / (1024.0 * 1024.0))));
+        SwingWorker<Void, Void> worker = new SwingWorker<>(){
+            @Override
+            protected Void doInBackground() throws IOException{
+                List<Path> paths = new ArrayList<>();
+                for(File file : files){
+                    paths.addAll(CorpusCounter.findFiles(file.toPath(), path -> isTxtFile(path)));
+                }
+                counter.count(paths, map);
+                return null;
+            }
+
+            @Override
+            protected void done(){
+                progressTimer.stop();
+                try{
+                    get();
+                }
+                catch(Exception er){
+                    textArea.setText("Error: An I/O error occurred reading the files.");
+                    countLabel.setText("Total Unique Words: ");
+                    return;
+                }
+                int shown = Math.min(limit, map.size());
+                Entry<String,Integer>[] arrayOfWords = CommonWordFinder.mostCommonWords(map, shown);
+                textArea.setText(CommonWordFinder.stringOfMostCommonWords(shown, arrayOfWords));
+                countLabel.setText("Total Unique Words: " + map.size());
+                myFrame.this.revalidate();
+                myFrame.this.repaint();
+            }
+        };
+        textArea.setText("");
+        progressTimer.start();
+        worker.execute();
+    }
+
     public boolean isTxtFile(Path path){
         String fileName = path.getFileName().toString();
-        return fileName.endsWith(".txt");
+        return fileName.endsWith(".txt") || fileName.endsWith(".txt.gz");
     }
 
     public void invalidFileMessage(){